@@ -319,23 +319,65 @@ BEFORE UPDATE ON monitored_services
 FOR EACH ROW EXECUTE FUNCTION touch_date_modified();
 
 -- High-volume logs
+-- Partitioned by day on checked_at; UptimeLogPartitionTask pre-creates future days and drops expired ones
 CREATE TABLE uptime_logs (
-  uptime_log_id     BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  uptime_log_id     BIGSERIAL,
   monitored_service_id BIGINT NOT NULL,
   status            VARCHAR(10) NOT NULL, -- UP / DOWN
   response_time_ms  INTEGER,
   http_status       INTEGER,
   error_message     TEXT,
-  checked_at        TIMESTAMP DEFAULT NOW(),
+  checked_at        TIMESTAMP NOT NULL DEFAULT NOW(),
   date_created      TIMESTAMP DEFAULT NOW(),
   date_modified     TIMESTAMP DEFAULT NOW(),
+  CONSTRAINT pk_uptime_logs PRIMARY KEY (uptime_log_id, checked_at),
   CONSTRAINT fk_monitored_services_uptime_logs
     FOREIGN KEY (monitored_service_id) REFERENCES monitored_services(monitored_service_id) ON DELETE CASCADE
-);
+) PARTITION BY RANGE (checked_at);
+
+-- Catches rows outside every daily partition (e.g. before maintenance first runs)
+CREATE TABLE uptime_logs_default PARTITION OF uptime_logs DEFAULT;
 
 CREATE INDEX index_uptime_logs_service_id_checked_at_status
 ON uptime_logs(monitored_service_id, checked_at, status);
 
+-- Keyset pagination for /services/logs/uptime
+CREATE INDEX index_uptime_logs_checked_at_id
+ON uptime_logs(checked_at, uptime_log_id);
+
+-- Element-wise sum of two histograms; used when merging uptime_rollups buckets
+CREATE OR REPLACE FUNCTION int_array_add(a INT[], b INT[]) RETURNS INT[]
+LANGUAGE sql IMMUTABLE AS $$
+  SELECT ARRAY(
+    SELECT COALESCE(x, 0) + COALESCE(y, 0)
+    FROM unnest(a, b) WITH ORDINALITY AS t(x, y, i)
+    ORDER BY i
+  )
+$$;
+
+-- Uptime rollups: per-service aggregates maintained incrementally by the uptime result writer
+CREATE TABLE uptime_rollups (
+  monitored_service_id BIGINT NOT NULL,
+  granularity       VARCHAR(2) NOT NULL,   -- 1m / 1h / 1d
+  bucket_start      TIMESTAMP NOT NULL,
+  check_count       INTEGER NOT NULL DEFAULT 0,
+  up_count          INTEGER NOT NULL DEFAULT 0,
+  latency_sum_ms    BIGINT NOT NULL DEFAULT 0,
+  latency_count     INTEGER NOT NULL DEFAULT 0,
+  latency_min_ms    INTEGER,
+  latency_max_ms    INTEGER,
+  latency_histogram INTEGER[] NOT NULL,    -- counts per fixed latency bucket, see UptimeRollups.LATENCY_BOUNDS_MS
+  downtime_seconds  BIGINT NOT NULL DEFAULT 0,
+  date_modified     TIMESTAMP DEFAULT NOW(),
+  CONSTRAINT pk_uptime_rollups PRIMARY KEY (monitored_service_id, granularity, bucket_start),
+  CONSTRAINT chk_uptime_rollups_granularity CHECK (granularity IN ('1m', '1h', '1d')),
+  CONSTRAINT fk_monitored_services_uptime_rollups
+    FOREIGN KEY (monitored_service_id) REFERENCES monitored_services(monitored_service_id) ON DELETE CASCADE
+);
+
+CREATE INDEX index_uptime_rollups_granularity_bucket_start
+ON uptime_rollups(granularity, bucket_start);
+
 -- SSL logs: Check on the SSL and log them
 CREATE TABLE ssl_logs (
   ssl_log_id          BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
@@ -364,6 +406,11 @@ CREATE TABLE ssl_logs (
   CONSTRAINT uniq_ssl_ms_domain UNIQUE (monitored_service_id, domain)
 );
 
+-- Keyset pagination for /services/logs/ssl
+-- last_checked is nullable; NULLs sort as the epoch, the same expression the handler pages on
+CREATE INDEX index_ssl_logs_last_checked_id
+ON ssl_logs((COALESCE(last_checked, TIMESTAMP 'epoch')), ssl_log_id);
+
 
 -- SSL that have been notified
 CREATE TABLE ssl_alerts (
@@ -432,17 +479,35 @@ CREATE TABLE event_outbox (
     service_id BIGINT REFERENCES monitored_services(monitored_service_id) ON DELETE CASCADE,
     event_type      VARCHAR(100),                                 -- e.g. SERVICE_DOWN, SSL_EXPIRING
     payload         JSONB NOT NULL,                               -- the actual event data (service_id, message, etc)
-    status          VARCHAR(20) DEFAULT 'PENDING',
+    status          VARCHAR(20) DEFAULT 'PENDING',                -- PENDING, IN_FLIGHT, PROCESSED, FAILED, NO_TEMPLATE_FOUND
     first_failure_at    TIMESTAMP,  --
-    retries         INT DEFAULT 0,
+    retries         INT DEFAULT 0,                                -- number of claims
     last_attempt_at TIMESTAMP,
+    lease_owner     VARCHAR(100),                                 -- processor holding the IN_FLIGHT lease
+    lease_until     TIMESTAMP,                                    -- lease expiry; for PENDING rows, not claimable before this
+    delivered       TEXT[] NOT NULL DEFAULT '{}',                 -- "<payload index>:<recipient>" already sent, skipped when reclaimed
     created_at      TIMESTAMP DEFAULT NOW(),
     updated_at      TIMESTAMP DEFAULT NOW()
 );
 
 CREATE INDEX idx_event_outbox_status ON event_outbox(status);
+CREATE INDEX idx_event_outbox_claimable ON event_outbox(event_outbox_id)
+    WHERE status IN ('PENDING', 'IN_FLIGHT');
 CREATE INDEX idx_event_outbox_service_id ON event_outbox(service_id);
 
+-- Wake NotificationProcessorTask (LISTEN event_outbox) once per inserting statement
+CREATE OR REPLACE FUNCTION notify_event_outbox()
+RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('event_outbox', '');
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_event_outbox_notify
+AFTER INSERT ON event_outbox
+FOR EACH STATEMENT EXECUTE FUNCTION notify_event_outbox();
+
 
 
 -- 4) REPORTING & HEALTH
@@ -488,6 +553,11 @@ CREATE TABLE audit_log (
     FOREIGN KEY (user_id) REFERENCES users(user_id)
 );
 
+-- Keyset pagination for /services/logs/audit
+-- date_created is nullable; NULLs sort as the epoch, the same expression the handler pages on
+CREATE INDEX index_audit_log_date_created_id
+ON audit_log((COALESCE(date_created, TIMESTAMP 'epoch')), audit_log_id);
+
 
 -- Default system settings done by administrator
 --/**
@@ -518,6 +588,8 @@ CREATE TABLE system_settings (
     notification_retry_count      INT,
     notification_cooldown_minutes INT DEFAULT 10,
 
+    uptime_log_retention_days     INT DEFAULT 90,  -- days of uptime_logs partitions kept; 0 keeps everything
+
     version           INT DEFAULT 1,
     is_active         BOOLEAN DEFAULT TRUE,    -- only one active per key
     changed_by        BIGINT,
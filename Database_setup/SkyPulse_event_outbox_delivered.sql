@@ -0,0 +1,11 @@
+-- One-off migration for databases created before event_outbox tracked delivered recipients.
+-- Fresh installs get this column from SkyPulse_DDL.sql and do not need this.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_event_outbox_delivered.sql
+
+BEGIN;
+
+ALTER TABLE event_outbox
+    ADD COLUMN IF NOT EXISTS delivered TEXT[] NOT NULL DEFAULT '{}';
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- One-off migration for databases created before event_outbox rows were claimed with leases.
+-- Fresh installs get these columns from SkyPulse_DDL.sql and do not need this.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_event_outbox_leases.sql
+
+BEGIN;
+
+ALTER TABLE event_outbox
+    ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_event_outbox_claimable ON event_outbox(event_outbox_id)
+    WHERE status IN ('PENDING', 'IN_FLIGHT');
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- One-off migration for databases created before event_outbox inserts sent NOTIFY.
+-- Fresh installs get the trigger from SkyPulse_DDL.sql and do not need this.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_event_outbox_notify.sql
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION notify_event_outbox()
+RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('event_outbox', '');
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_event_outbox_notify ON event_outbox;
+CREATE TRIGGER trg_event_outbox_notify
+AFTER INSERT ON event_outbox
+FOR EACH STATEMENT EXECUTE FUNCTION notify_event_outbox();
+
+COMMIT;
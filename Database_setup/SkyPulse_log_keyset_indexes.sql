@@ -0,0 +1,26 @@
+-- One-off migration for databases created before the log endpoints paged by keyset.
+-- Fresh installs get these indexes from SkyPulse_DDL.sql and do not need this.
+-- Without them keyset pages still work but sort the whole filtered log on every request.
+-- Each CREATE INDEX blocks writes to its table while it builds; run it in a quiet period on large logs.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_log_keyset_indexes.sql
+
+BEGIN;
+
+-- Keyset pagination for /services/logs/uptime
+CREATE INDEX IF NOT EXISTS index_uptime_logs_checked_at_id
+ON uptime_logs(checked_at, uptime_log_id);
+
+-- Keyset pagination for /services/logs/ssl
+-- last_checked is nullable, so the key is COALESCE(last_checked, epoch); replaces an earlier plain-column index
+DROP INDEX IF EXISTS index_ssl_logs_last_checked_id;
+CREATE INDEX index_ssl_logs_last_checked_id
+ON ssl_logs((COALESCE(last_checked, TIMESTAMP 'epoch')), ssl_log_id);
+
+-- Keyset pagination for /services/logs/audit
+-- date_created is nullable, so the key is COALESCE(date_created, epoch); replaces an earlier plain-column index
+DROP INDEX IF EXISTS index_audit_log_date_created_id;
+CREATE INDEX index_audit_log_date_created_id
+ON audit_log((COALESCE(date_created, TIMESTAMP 'epoch')), audit_log_id);
+
+COMMIT;
@@ -0,0 +1,63 @@
+-- One-off migration for databases created before uptime_logs was partitioned.
+-- Fresh installs get the partitioned table from SkyPulse_DDL.sql and do not need this.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_uptime_logs_partitioning.sql
+
+BEGIN;
+
+ALTER TABLE system_settings
+    ADD COLUMN IF NOT EXISTS uptime_log_retention_days INT DEFAULT 90;
+
+ALTER TABLE uptime_logs RENAME TO uptime_logs_legacy;
+ALTER INDEX index_uptime_logs_service_id_checked_at_status RENAME TO index_uptime_logs_legacy_service_id_checked_at_status;
+ALTER TABLE uptime_logs_legacy RENAME CONSTRAINT fk_monitored_services_uptime_logs TO fk_monitored_services_uptime_logs_legacy;
+
+CREATE TABLE uptime_logs (
+  uptime_log_id     BIGSERIAL,
+  monitored_service_id BIGINT NOT NULL,
+  status            VARCHAR(10) NOT NULL, -- UP / DOWN
+  response_time_ms  INTEGER,
+  http_status       INTEGER,
+  error_message     TEXT,
+  checked_at        TIMESTAMP NOT NULL DEFAULT NOW(),
+  date_created      TIMESTAMP DEFAULT NOW(),
+  date_modified     TIMESTAMP DEFAULT NOW(),
+  CONSTRAINT pk_uptime_logs PRIMARY KEY (uptime_log_id, checked_at),
+  CONSTRAINT fk_monitored_services_uptime_logs
+    FOREIGN KEY (monitored_service_id) REFERENCES monitored_services(monitored_service_id) ON DELETE CASCADE
+) PARTITION BY RANGE (checked_at);
+
+CREATE TABLE uptime_logs_default PARTITION OF uptime_logs DEFAULT;
+
+CREATE INDEX index_uptime_logs_service_id_checked_at_status
+ON uptime_logs(monitored_service_id, checked_at, status);
+
+-- Daily partitions for every day that already has rows, plus the coming week
+DO $$
+DECLARE
+    d DATE;
+    first_day DATE;
+BEGIN
+    SELECT COALESCE(MIN(checked_at)::date, CURRENT_DATE) INTO first_day FROM uptime_logs_legacy;
+    FOR d IN SELECT generate_series(first_day, CURRENT_DATE + 7, INTERVAL '1 day')::date LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF uptime_logs FOR VALUES FROM (%L) TO (%L)',
+            'uptime_logs_p' || to_char(d, 'YYYYMMDD'), d, d + 1
+        );
+    END LOOP;
+END $$;
+
+INSERT INTO uptime_logs (
+    uptime_log_id, monitored_service_id, status, response_time_ms, http_status,
+    error_message, checked_at, date_created, date_modified
+)
+SELECT uptime_log_id, monitored_service_id, status, response_time_ms, http_status,
+       error_message, COALESCE(checked_at, date_created, NOW()), date_created, date_modified
+FROM uptime_logs_legacy;
+
+SELECT setval(pg_get_serial_sequence('uptime_logs', 'uptime_log_id'),
+              COALESCE((SELECT MAX(uptime_log_id) FROM uptime_logs), 0) + 1, false);
+
+DROP TABLE uptime_logs_legacy;
+
+COMMIT;
@@ -0,0 +1,43 @@
+-- One-off migration for databases created before uptime results were rolled up.
+-- Fresh installs get these objects from SkyPulse_DDL.sql and do not need this.
+-- Run it before starting the new version: the uptime result writer upserts uptime_rollups in the same
+-- transaction as uptime_logs, so without the table every flush fails.
+-- Rollups start from the first flush after the upgrade; older uptime_logs are not backfilled.
+--
+-- psql -U spadmin -d skypulse_monitoring_system_database -f Database_setup/SkyPulse_uptime_rollups.sql
+
+BEGIN;
+
+-- Element-wise sum of two histograms; used when merging uptime_rollups buckets
+CREATE OR REPLACE FUNCTION int_array_add(a INT[], b INT[]) RETURNS INT[]
+LANGUAGE sql IMMUTABLE AS $$
+  SELECT ARRAY(
+    SELECT COALESCE(x, 0) + COALESCE(y, 0)
+    FROM unnest(a, b) WITH ORDINALITY AS t(x, y, i)
+    ORDER BY i
+  )
+$$;
+
+CREATE TABLE IF NOT EXISTS uptime_rollups (
+  monitored_service_id BIGINT NOT NULL,
+  granularity       VARCHAR(2) NOT NULL,   -- 1m / 1h / 1d
+  bucket_start      TIMESTAMP NOT NULL,
+  check_count       INTEGER NOT NULL DEFAULT 0,
+  up_count          INTEGER NOT NULL DEFAULT 0,
+  latency_sum_ms    BIGINT NOT NULL DEFAULT 0,
+  latency_count     INTEGER NOT NULL DEFAULT 0,
+  latency_min_ms    INTEGER,
+  latency_max_ms    INTEGER,
+  latency_histogram INTEGER[] NOT NULL,    -- counts per fixed latency bucket, see UptimeRollups.LATENCY_BOUNDS_MS
+  downtime_seconds  BIGINT NOT NULL DEFAULT 0,
+  date_modified     TIMESTAMP DEFAULT NOW(),
+  CONSTRAINT pk_uptime_rollups PRIMARY KEY (monitored_service_id, granularity, bucket_start),
+  CONSTRAINT chk_uptime_rollups_granularity CHECK (granularity IN ('1m', '1h', '1d')),
+  CONSTRAINT fk_monitored_services_uptime_rollups
+    FOREIGN KEY (monitored_service_id) REFERENCES monitored_services(monitored_service_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS index_uptime_rollups_granularity_bucket_start
+ON uptime_rollups(granularity, bucket_start);
+
+COMMIT;
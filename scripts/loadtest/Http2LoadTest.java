@@ -0,0 +1,195 @@
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent-stream load test for the REST/SSE listener, JDK only.
+ * - Opens --sse long-lived SSE streams and keeps --concurrency REST requests in flight for --duration seconds,
+ *   the way several dashboard tabs do
+ * - --http 2 uses h2c (Upgrade) on http:// and ALPN h2 on https://, so every stream shares one connection;
+ *   --http 1.1 gives each in-flight stream its own connection, capped at --max-connections like a browser
+ * - Reports REST throughput and latency percentiles, SSE streams held and events received, and the
+ *   protocol each response actually used
+ *
+ * java scripts/loadtest/Http2LoadTest.java --base http://localhost:8000/api/rest --http 2 --sse 20 --concurrency 50
+ * Secured paths need the session cookies: --cookie "accessToken=...; refreshToken=..."
+ */
+public class Http2LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        String base = opts.getOrDefault("base", "http://localhost:8000/api/rest");
+        String ssePath = opts.getOrDefault("sse-path", "/sse/health");
+        String restPath = opts.getOrDefault("rest-path", "/system/health");
+        int sseStreams = Integer.parseInt(opts.getOrDefault("sse", "20"));
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "50"));
+        int durationSeconds = Integer.parseInt(opts.getOrDefault("duration", "30"));
+        boolean http2 = !"1.1".equals(opts.getOrDefault("http", "2"));
+        int maxConnections = Integer.parseInt(opts.getOrDefault("max-connections", http2 ? "0" : "6"));
+        String cookie = opts.get("cookie");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        // HTTP/1.1 holds one connection per in-flight stream; a browser allows about six per origin
+        Semaphore connections = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+
+        // One request first, so the h2c upgrade settles before the concurrent streams start
+        HttpResponse<Void> warmup = client.send(request(base + restPath, cookie, false), HttpResponse.BodyHandlers.discarding());
+        System.out.printf("Warm-up %s -> %d over %s%n", restPath, warmup.statusCode(), warmup.version());
+
+        Stats stats = new Stats();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Stream<String>> openBodies = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sseStreams; i++) {
+                workers.submit(() -> sse(client, request(base + ssePath, cookie, true), connections, deadline, stats, openBodies));
+            }
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> rest(client, request(base + restPath, cookie, false), connections, deadline, stats));
+            }
+
+            long start = System.nanoTime();
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(1_000);
+                long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+                System.out.printf("%3ds  rest=%d (%.0f req/s) errors=%d  sse open=%d events=%d%n",
+                        elapsed, stats.requests.get(), stats.requests.get() / (double) elapsed, stats.errors.get(),
+                        stats.sseOpen.get(), stats.sseEvents.get());
+            }
+            // Ending the SSE bodies releases the threads blocked reading them
+            synchronized (openBodies) {
+                openBodies.forEach(Stream::close);
+            }
+            workers.shutdownNow();
+        }
+
+        stats.report(durationSeconds, http2, sseStreams, concurrency, maxConnections);
+    }
+
+    private static HttpRequest request(String url, String cookie, boolean sse) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (sse) builder.header("Accept", "text/event-stream");
+        if (cookie != null && !cookie.isBlank()) builder.header("Cookie", cookie);
+        return builder.build();
+    }
+
+    private static void rest(HttpClient client, HttpRequest request, Semaphore connections, long deadline, Stats stats) {
+        while (System.nanoTime() < deadline) {
+            long started = System.nanoTime();
+            try {
+                if (connections != null) connections.acquire();
+                try {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    stats.version(response.version());
+                    if (response.statusCode() >= 400) {
+                        stats.errors.incrementAndGet();
+                        continue;
+                    }
+                } finally {
+                    if (connections != null) connections.release();
+                }
+                stats.latency(System.nanoTime() - started);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                stats.errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static void sse(HttpClient client, HttpRequest request, Semaphore connections, long deadline,
+                            Stats stats, List<Stream<String>> openBodies) {
+        try {
+            if (connections != null) connections.acquire();
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            stats.version(response.version());
+            if (response.statusCode() != 200) {
+                stats.sseFailed.incrementAndGet();
+                response.body().close();
+                return;
+            }
+            openBodies.add(response.body());
+            stats.sseOpen.incrementAndGet();
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> it = lines.iterator();
+                while (System.nanoTime() < deadline && it.hasNext()) {
+                    if (it.next().startsWith("data:")) stats.sseEvents.incrementAndGet();
+                }
+            } catch (UncheckedIOException | IllegalStateException e) {
+                // Closed at the end of the run
+            }
+        } catch (InterruptedException e) {
+            // Run finished before the stream opened
+        } catch (Exception e) {
+            stats.sseFailed.incrementAndGet();
+        } finally {
+            if (connections != null) connections.release();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            opts.put(args[i].substring(2), args[++i]);
+        }
+        return opts;
+    }
+
+    private static final class Stats {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicInteger sseOpen = new AtomicInteger();
+        final AtomicInteger sseFailed = new AtomicInteger();
+        final AtomicLong sseEvents = new AtomicLong();
+        final Map<HttpClient.Version, AtomicLong> versions = new ConcurrentHashMap<>();
+        final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        void latency(long nanos) {
+            requests.incrementAndGet();
+            latencies.add(nanos);
+        }
+
+        void version(HttpClient.Version version) {
+            versions.computeIfAbsent(version, v -> new AtomicLong()).incrementAndGet();
+        }
+
+        void report(int durationSeconds, boolean http2, int sseStreams, int concurrency, int maxConnections) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.println();
+            System.out.printf("Mode           : %s, %d SSE streams + %d concurrent REST, max connections %s%n",
+                    http2 ? "HTTP/2" : "HTTP/1.1", sseStreams, concurrency, maxConnections > 0 ? maxConnections : "unlimited");
+            System.out.printf("REST           : %d ok, %d errors, %.1f req/s%n",
+                    requests.get(), errors.get(), requests.get() / (double) durationSeconds);
+            System.out.printf("REST latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+            System.out.printf("SSE            : %d of %d streams opened, %d failed, %d events received%n",
+                    sseOpen.get(), sseStreams, sseFailed.get(), sseEvents.get());
+            System.out.printf("Protocols      : %s%n", versions);
+        }
+
+        private static double percentile(long[] sorted, int p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -5,8 +5,11 @@ import org.skypulse.config.database.DBTaskScheduler;
 import org.skypulse.config.database.DatabaseManager;
 import org.skypulse.config.utils.LogContext;
 import org.skypulse.config.utils.XmlConfiguration;
+import org.skypulse.handlers.reports.ReportJobs;
 import org.skypulse.rest.RestApiServer;
 import org.skypulse.tasks.TaskScheduler;
+import org.skypulse.tasks.probe.UptimeProbeEngine;
+import org.skypulse.tasks.probe.UptimeResultWriter;
 import org.skypulse.utils.security.KeyProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -98,6 +101,9 @@ public class Main {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 logger.info("[------------ Shutdown initiated ------------]");
                 appScheduler.shutdown();
+                UptimeProbeEngine.shared().shutdown();
+                UptimeResultWriter.shared().shutdown();
+                ReportJobs.shared().shutdown();
                 DBTaskScheduler.shutdown();
                 DatabaseManager.shutdown();
                 logger.info("[------------ SkyPulse System shutdown complete ------------]");
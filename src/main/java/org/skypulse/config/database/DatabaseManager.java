@@ -9,7 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 /**
  * Handles database connectivity using HikariCP connection pooling.
@@ -20,6 +22,8 @@ public class DatabaseManager {
 
     private static volatile HikariDataSource dataSource;
     private static volatile boolean initialized = false;
+    private static volatile String jdbcUrl;
+    private static volatile Properties connectionProperties;
 
     public static boolean isInitialized() {
         return initialized;
@@ -62,7 +66,14 @@ public class DatabaseManager {
                 try { dataSource.close(); } catch (Exception ignored) {}
             }
 
+            Properties props = new Properties();
+            props.putAll(hc.getDataSourceProperties());
+            if (cfg.dataSource.username != null) props.setProperty("user", cfg.dataSource.username);
+            if (cfg.dataSource.password != null) props.setProperty("password", cfg.dataSource.password);
+
             dataSource = newDs;
+            jdbcUrl = cfg.dataSource.jdbcUrl;
+            connectionProperties = props;
             initialized = true;
             logger.info("[------------ Database connection successful! --------]");
 
@@ -100,6 +111,15 @@ public class DatabaseManager {
         return initialized ? dataSource : null;
     }
 
+    /**
+     * Connection outside the pool for long-lived sessions (LISTEN) that must not be recycled
+     * by maxLifetime or hold a pool slot. The caller closes it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
+        if (!initialized) throw new SQLException("Database is not initialized");
+        return DriverManager.getConnection(jdbcUrl, connectionProperties);
+    }
+
     /**
      * Shutdown the connection pool safely.
      */
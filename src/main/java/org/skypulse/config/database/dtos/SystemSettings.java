@@ -29,6 +29,7 @@ public final class SystemSettings {
             int notificationCheckInterval,
             int notificationRetryCount,
             int notificationCooldownMinutes,
+            int uptimeLogRetentionDays,
             int version,
             boolean isActive,
             Long changedBy,
@@ -86,6 +87,7 @@ public final class SystemSettings {
                         rs.getInt("notification_check_interval"),
                         rs.getInt("notification_retry_count"),
                         rs.getInt("notification_cooldown_minutes"),
+                        rs.getInt("uptime_log_retention_days"),
                         rs.getInt("version"),
                         rs.getBoolean("is_active"),
                         rs.getObject("changed_by") != null ? rs.getLong("changed_by") : null,
@@ -20,6 +20,19 @@ public class XmlConfiguration {
         public int ioThreads;
         public int workerThreads;
         public String basePath;
+        public int compressionMinBytes;  // responses smaller than this are sent uncompressed; 0 uses 1024
+
+        // Listener tuning; 0 / absent keeps Undertow's default
+        public boolean http2;                // h2c upgrade on the HTTP listener, ALPN h2 on the HTTPS one
+        public int httpsPort;                // 0 disables the TLS listener
+        public String keyStorePath;          // PKCS12 with the server certificate
+        public String keyStorePassword;
+        public int bufferSize;               // bytes per pooled I/O buffer
+        public Boolean directBuffers;
+        public long maxEntitySize;           // request body limit in bytes
+        public int idleTimeoutMs;            // close connections idle this long
+        public int noRequestTimeoutMs;       // close connections that send no request within this
+        public int http2MaxConcurrentStreams;
     }
     @XmlRootElement(name = "jwtConfig")
     public static class JwtConfig {
@@ -73,6 +86,9 @@ public class XmlConfiguration {
             public String fromAddress;
             public int connectionTimeout;
             public int retryAttempts;
+            public int poolSize;           // pooled SMTP connections; 0 uses 4
+            public int idleTimeoutMs;      // close pooled connections idle this long; 0 uses 60000
+            public boolean debug;          // SMTP protocol trace on stdout
         }
 
         @XmlRootElement(name = "telegram")
@@ -4,6 +4,7 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import org.skypulse.config.database.DatabaseManager;
 import org.skypulse.rest.auth.RequireRoles;
+import org.skypulse.tasks.sse.SseHandler;
 import org.skypulse.utils.JsonUtil;
 import org.skypulse.utils.ResponseUtil;
 import org.skypulse.utils.security.KeyProvider;
@@ -20,7 +21,8 @@ import java.util.*;
  * HTTP handler for health check endpoint.
  * Returns  -  basic app info,
  *          -  database status,
- *          -  background task statuses.
+ *          -  background task statuses,
+ *          -  SSE fan-out counters.
  */
 @RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
 public class HealthCheckHandler implements HttpHandler {
@@ -76,6 +78,7 @@ public class HealthCheckHandler implements HttpHandler {
         }
 
         response.put("background_tasks", tasks);
+        response.put("sse", SseHandler.metrics());
 
         ResponseUtil.sendSuccess(exchange, "Health check completed", response);
     }
@@ -27,8 +27,8 @@ public class TaskController implements HttpHandler {
         }
 
         try {
-            taskScheduler.reload();
-            ResponseUtil.sendSuccess(exchange, "Tasks reloaded successfully", null);
+            TaskScheduler.ReloadResult result = taskScheduler.reload();
+            ResponseUtil.sendSuccess(exchange, "Tasks reloaded successfully", result);
         } catch (Exception e) {
             ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR, "Tasks reload failed");
         }
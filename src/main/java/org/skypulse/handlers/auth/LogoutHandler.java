@@ -3,6 +3,7 @@ package org.skypulse.handlers.auth;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import org.skypulse.config.database.DatabaseManager;
+import org.skypulse.rest.auth.SessionCache;
 import org.skypulse.utils.ResponseUtil;
 import org.skypulse.utils.security.CookieUtil;
 import org.skypulse.utils.security.TokenUtil;
@@ -36,10 +37,11 @@ public class LogoutHandler implements HttpHandler {
 
             try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()) {
                 UUID sessionId = null;
+                UUID jwtId = null;
                 boolean isRevoked = false;
 
                 String selectSql = """
-                        SELECT auth_session_id, is_revoked, expires_at
+                        SELECT auth_session_id, jwt_id, is_revoked, expires_at
                         FROM auth_sessions
                         WHERE refresh_token_hash = ?
                           AND session_status = 'active'
@@ -50,6 +52,7 @@ public class LogoutHandler implements HttpHandler {
                     try (ResultSet rs = ps.executeQuery()) {
                         if (rs.next()) {
                             sessionId = (UUID) rs.getObject("auth_session_id");
+                            jwtId = (UUID) rs.getObject("jwt_id");
                             isRevoked = rs.getBoolean("is_revoked");
 
                             Timestamp expiresAt = rs.getTimestamp("expires_at");
@@ -82,6 +85,8 @@ public class LogoutHandler implements HttpHandler {
                     }
                 }
 
+                SessionCache.shared().invalidate(jwtId);
+
                 clearCookies(exchange);
                 ResponseUtil.sendSuccess(exchange, "Logged out successfully", null);
             }
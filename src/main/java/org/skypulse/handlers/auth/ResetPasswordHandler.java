@@ -5,6 +5,7 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.StatusCodes;
 import org.skypulse.config.database.JdbcUtils;
+import org.skypulse.rest.auth.SessionCache;
 import org.skypulse.utils.JsonUtil;
 import org.skypulse.utils.ResponseUtil;
 import org.skypulse.utils.security.PasswordUtil;
@@ -96,7 +97,21 @@ public class ResetPasswordHandler implements HttpHandler {
                 ps.executeUpdate();
             }
 
+            // Sessions opened with the old password end here
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    UPDATE auth_sessions
+                    SET is_revoked = TRUE,
+                        revoked_at = NOW(),
+                        session_status = 'revoked',
+                        date_modified = NOW()
+                    WHERE user_id = ? AND is_revoked = FALSE
+                    """)) {
+                ps.setLong(1, userId);
+                ps.executeUpdate();
+            }
+
             conn.commit();
+            SessionCache.shared().invalidateUser(userId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Password reset successful");
@@ -0,0 +1,31 @@
+package org.skypulse.handlers.logs;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.rest.auth.RequireRoles;
+import org.skypulse.utils.QueryUtil;
+import org.skypulse.utils.ResponseUtil;
+
+/**
+ * GET /services/logs/ssl/export?format=csv|ndjson with the /logs/ssl filters.
+ */
+@RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
+public class ExportSslLogsHandler implements HttpHandler {
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        QueryUtil.QueryParts qp = QueryUtil.build(
+                exchange,
+                GetSSLLogsHandler.FILTER_MAP,
+                GetSSLLogsHandler.SORT_MAP,
+                "last_checked"
+        );
+
+        try {
+            LogExport.send(exchange, "ssl_logs", GetSSLLogsHandler.SELECT, qp);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.skypulse.handlers.logs;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.rest.auth.RequireRoles;
+import org.skypulse.utils.QueryUtil;
+import org.skypulse.utils.ResponseUtil;
+
+/**
+ * GET /services/logs/uptime/export?format=csv|ndjson with the /logs/uptime filters.
+ */
+@RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
+public class ExportUptimeLogsHandler implements HttpHandler {
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        QueryUtil.QueryParts qp = QueryUtil.build(
+                exchange,
+                GetUptimeLogsHandler.FILTER_MAP,
+                GetUptimeLogsHandler.SORT_MAP,
+                "checked_at"
+        );
+
+        try {
+            LogExport.send(exchange, "uptime_logs", GetUptimeLogsHandler.SELECT, qp);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
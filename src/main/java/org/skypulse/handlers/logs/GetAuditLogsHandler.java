@@ -2,29 +2,24 @@ package org.skypulse.handlers.logs;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
 import org.skypulse.config.database.DatabaseUtils;
 import org.skypulse.rest.auth.RequireRoles;
 import org.skypulse.utils.HttpRequestUtil;
-import org.skypulse.utils.JsonUtil;
 import org.skypulse.utils.ResponseUtil;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
 
 /**
- * Parse JSONB field dynamically: converts JSON objects to Map and JSON arrays to List<Map>.
+ * Audit log, newest first.
+ * Offset pages by default; ?paging=keyset or ?cursor= pages by keyset on (date_created, audit_log_id).
+ * JSONB before/after data is streamed raw, so objects and arrays come through unchanged.
  * */
 
 @RequireRoles({"ADMIN"})
 public class GetAuditLogsHandler implements HttpHandler {
 
-    private static final Logger logger = LoggerFactory.getLogger(GetAuditLogsHandler.class);
-
     private static final Map<String, String> FILTERABLE_MAP = Map.of(
             "entity", "a.entity",
             "action", "a.action"
@@ -43,7 +38,8 @@ public class GetAuditLogsHandler implements HttpHandler {
             "a.date_created", java.sql.Timestamp.class
     );
 
-    private static final ObjectMapper mapper = JsonUtil.mapper();
+    // date_created is nullable
+    private static final String KEY = LogPage.nullableKey("a.date_created");
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
@@ -82,61 +78,64 @@ public class GetAuditLogsHandler implements HttpHandler {
             }
         }
 
-        String orderBy = DatabaseUtils.buildOrderBy(sortRules, new HashSet<>(SORTABLE_MAP.values()));
-
         String baseSql = " FROM audit_log a LEFT JOIN users u ON a.user_id = u.user_id ";
-
-        String countSql = "SELECT COUNT(*) AS total " + baseSql + " WHERE 1=1 " + filterResult.sql();
-        int total = ((Number) DatabaseUtils.query(countSql, filterResult.params()).getFirst().get("total")).intValue();
-
-        String dataSql = """
+        // jsonb is streamed as-is; missing data keeps rendering as {} like before
+        String selectSql = """
         SELECT a.audit_log_id, a.user_id, a.entity, a.entity_id, a.action,
-               a.before_data, a.after_data, a.ip_address, a.date_created,
+               COALESCE(a.before_data, '{}'::jsonb) AS before_data,
+               COALESCE(a.after_data, '{}'::jsonb) AS after_data,
+               a.ip_address, a.date_created,
                u.user_email, CONCAT(u.first_name, ' ', u.last_name) AS user_full_name
-        """ + baseSql + " WHERE 1=1 " + filterResult.sql() + orderBy + " LIMIT ? OFFSET ?";
+        """ + baseSql + " WHERE 1=1 " + filterResult.sql();
+        String countSql = "SELECT COUNT(*) AS total " + baseSql + " WHERE 1=1 " + filterResult.sql();
 
+        if (LogPage.useKeyset(params, "date")) {
+            sendKeysetPage(exchange, params, selectSql, countSql, filterResult.params(), pageSize);
+            return;
+        }
+
+        String orderBy = DatabaseUtils.buildOrderBy(sortRules, new HashSet<>(SORTABLE_MAP.values()));
+
+        LogCounts.Total total = LogCounts.shared().total("audit_log", countSql, filterResult.params());
+
+        String dataSql = selectSql + orderBy + " LIMIT ? OFFSET ?";
 
         List<Object> dataParams = new ArrayList<>(filterResult.params());
         dataParams.add(pageSize);
         dataParams.add(offset);
 
-        List<Map<String, Object>> logs = DatabaseUtils.query(dataSql, dataParams);
+        LogPage.sendOffset(exchange, "audit_logs", dataSql, dataParams, page, pageSize, total, null);
+    }
 
-        // Deserialize JSONB fields automatically detecting objects vs arrays
-        for (Map<String, Object> log : logs) {
-            parseJsonField(log, "before_data");
-            parseJsonField(log, "after_data");
+    private void sendKeysetPage(HttpServerExchange exchange, Map<String, Deque<String>> params, String selectSql,
+                                String countSql, List<Object> filterParams, int defaultPageSize) throws Exception {
+        boolean ascending = LogPage.ascending(params);
+        int pageSize = LogPage.pageSize(params, defaultPageSize);
+        LogPage.Cursor cursor;
+        try {
+            cursor = LogPage.cursor(params, ascending);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
         }
 
-        ResponseUtil.sendPaginated(exchange, "audit_logs", page, pageSize, total, logs);
-    }
-
+        String dataSql = selectSql
+                + (cursor != null ? LogPage.seek(KEY, "a.audit_log_id", ascending) : "")
+                + LogPage.orderBy(KEY, "a.audit_log_id", ascending)
+                + " LIMIT ?";
 
-    private void parseJsonField(Map<String, Object> log, String fieldName) {
-        Object obj = log.get(fieldName);
-        if (obj instanceof String) {
-            try {
-                String jsonStr = (String) obj;
-                if (jsonStr.trim().startsWith("[")) {
-                    // JSON Array
-                    List<Map<String, Object>> list = mapper.readValue(jsonStr, new TypeReference<List<Map<String, Object>>>() {});
-                    log.put(fieldName, list != null ? list : Collections.emptyList());
-                } else {
-                    // JSON Object
-                    Map<String, Object> map = mapper.readValue(jsonStr, new TypeReference<Map<String, Object>>() {});
-                    log.put(fieldName, map != null ? map : Collections.emptyMap());
-                }
-            } catch (Exception e) {
-                logger.error("Failed to parse {} for audit_log_id {}: {}", fieldName, log.get("audit_log_id"), e.getMessage(), e);
-                log.put(fieldName, jsonStrIsArray(obj) ? Collections.emptyList() : Collections.emptyMap());
-            }
-        } else if (obj == null) {
-            log.put(fieldName, Collections.emptyMap());
+        List<Object> dataParams = new ArrayList<>(filterParams);
+        if (cursor != null) {
+            dataParams.add(cursor.at());
+            dataParams.add(cursor.id());
         }
-    }
+        dataParams.add(pageSize + 1);
+
+        LogCounts.Total total = LogPage.wantsCount(params)
+                ? LogCounts.shared().total("audit_log", countSql, filterParams)
+                : null;
 
-    private boolean jsonStrIsArray(Object obj) {
-        if (!(obj instanceof String)) return false;
-        return ((String) obj).trim().startsWith("[");
+        LogPage.sendKeyset(exchange, "audit_logs", dataSql, dataParams, pageSize, ascending,
+                "date_created", "audit_log_id", total, null);
     }
 }
@@ -1,21 +1,28 @@
 package org.skypulse.handlers.logs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import org.skypulse.config.database.DatabaseManager;
+import io.undertow.util.StatusCodes;
 import org.skypulse.rest.auth.RequireRoles;
 import org.skypulse.utils.QueryUtil;
 import org.skypulse.utils.ResponseUtil;
 
-import java.sql.*;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 
-import static org.skypulse.utils.DbUtil.setParams;
-
+/**
+ * SSL logs, most recently checked first.
+ * - Default: offset pages; the total comes from LogCounts instead of a COUNT(*) per request
+ * - ?paging=keyset / ?cursor=: keyset pages on (last_checked, ssl_log_id); ?count=true adds a total
+ * - Rows are streamed from the cursor to the response, see JsonStreamUtil
+ */
 @RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
 public class GetSSLLogsHandler implements HttpHandler {
 
-    private static final Map<String, String> SORT_MAP = Map.of(
+    static final Map<String, String> SORT_MAP = Map.of(
             "checked", "last_checked",
             "service", "ms.monitored_service_name",
             "domain", "domain",
@@ -25,73 +32,91 @@ public class GetSSLLogsHandler implements HttpHandler {
             "chain_valid", "chain_valid"
     );
 
-    private static final Map<String, String> FILTER_MAP = Map.of(
+    static final Map<String, String> FILTER_MAP = Map.of(
             "service", "ms.monitored_service_name",
             "domain", "domain",
             "issuer", "issuer",
             "chain_valid", "chain_valid"
     );
 
-    @Override
-    public void handleRequest(HttpServerExchange exchange) throws Exception {
-        QueryUtil.QueryParts qp = QueryUtil.build(exchange, FILTER_MAP, SORT_MAP, "last_checked");
-
-        String sql = """
+    static final String SELECT = """
             SELECT s.ssl_log_id, s.monitored_service_id, ms.monitored_service_name AS service_name,
                    s.domain, s.issuer, s.serial_number,
                    s.signature_algorithm, s.public_key_algo, s.public_key_length, s.san_list, s.chain_valid,
                    s.subject, s.fingerprint, s.issued_date, s.expiry_date, s.days_remaining, s.last_checked
             FROM ssl_logs s
             LEFT JOIN monitored_services ms ON s.monitored_service_id = ms.monitored_service_id
-        """ + qp.where() + qp.orderBy() + " LIMIT ? OFFSET ?";
+        """;
+
+    // last_checked is nullable
+    private static final String KEY = LogPage.nullableKey("s.last_checked");
 
-        String countSql = """
+    private static final String COUNT = """
             SELECT COUNT(*)
             FROM ssl_logs s
             LEFT JOIN monitored_services ms ON s.monitored_service_id = ms.monitored_service_id
-        """ + qp.where();
+        """;
 
-        List<Map<String, Object>> logs = new ArrayList<>();
-        long total = 0;
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        Map<String, Deque<String>> params = exchange.getQueryParameters();
+        QueryUtil.QueryParts qp = QueryUtil.build(exchange, FILTER_MAP, SORT_MAP, "last_checked");
 
-        try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()) {
+        if (LogPage.useKeyset(params, "checked")) {
+            sendKeysetPage(exchange, params, qp);
+            return;
+        }
 
-            try (PreparedStatement st = conn.prepareStatement(countSql)) {
-                setParams(st, qp.params());
-                ResultSet rs = st.executeQuery();
-                if (rs.next()) total = rs.getLong(1);
-            }
+        String sql = SELECT + qp.where() + qp.orderBy() + " LIMIT ? OFFSET ?";
 
-            try (PreparedStatement st = conn.prepareStatement(sql)) {
-                int idx = setParams(st, qp.params());
-                st.setInt(idx++, qp.pageSize());
-                st.setInt(idx, qp.offset());
-
-                ResultSet rs = st.executeQuery();
-                ResultSetMetaData md = rs.getMetaData();
-                int colCount = md.getColumnCount();
-
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= colCount; i++) {
-                        String colName = md.getColumnLabel(i);
-                        Object value = rs.getObject(i);
-                        row.put(colName, value);
-                    }
-
-                    if (row.get("issuer") != null) {
-                        Map<String, String> issuerInfo = parseIssuer(row.get("issuer").toString());
-                        row.put("issuer_common_name", issuerInfo.get("CN"));
-                        row.put("issuer_org", issuerInfo.get("O"));
-                        row.put("issuer_country", issuerInfo.get("C"));
-                    }
-
-                    logs.add(row);
-                }
-            }
+        LogCounts.Total total = LogCounts.shared().total("ssl_logs", COUNT + qp.where(), qp.params());
+
+        List<Object> sqlParams = new ArrayList<>(qp.params());
+        sqlParams.add(qp.pageSize());
+        sqlParams.add(qp.offset());
+
+        LogPage.sendOffset(exchange, "ssl_logs", sql, sqlParams, qp.page(), qp.pageSize(), total, this::writeIssuer);
+    }
+
+    private void sendKeysetPage(HttpServerExchange exchange, Map<String, Deque<String>> params,
+                                QueryUtil.QueryParts qp) throws SQLException, IOException {
+        boolean ascending = LogPage.ascending(params);
+        int pageSize = LogPage.pageSize(params, qp.pageSize());
+        LogPage.Cursor cursor;
+        try {
+            cursor = LogPage.cursor(params, ascending);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
         }
 
-        ResponseUtil.sendPaginated(exchange, "ssl_logs", qp.page(), qp.pageSize(), (int) total, logs);
+        String sql = SELECT + qp.where()
+                + (cursor != null ? LogPage.seek(KEY, "s.ssl_log_id", ascending) : "")
+                + LogPage.orderBy(KEY, "s.ssl_log_id", ascending)
+                + " LIMIT ?";
+
+        List<Object> sqlParams = new ArrayList<>(qp.params());
+        if (cursor != null) {
+            sqlParams.add(cursor.at());
+            sqlParams.add(cursor.id());
+        }
+        sqlParams.add(pageSize + 1);
+
+        LogCounts.Total total = LogPage.wantsCount(params)
+                ? LogCounts.shared().total("ssl_logs", COUNT + qp.where(), qp.params())
+                : null;
+
+        LogPage.sendKeyset(exchange, "ssl_logs", sql, sqlParams, pageSize, ascending,
+                "last_checked", "ssl_log_id", total, this::writeIssuer);
+    }
+
+    private void writeIssuer(ResultSet rs, JsonGenerator gen) throws SQLException, IOException {
+        String issuer = rs.getString("issuer");
+        if (issuer == null) return;
+        Map<String, String> issuerInfo = parseIssuer(issuer);
+        gen.writeStringField("issuer_common_name", issuerInfo.get("CN"));
+        gen.writeStringField("issuer_org", issuerInfo.get("O"));
+        gen.writeStringField("issuer_country", issuerInfo.get("C"));
     }
 
 
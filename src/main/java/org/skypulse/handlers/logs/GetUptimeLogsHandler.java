@@ -2,34 +2,57 @@ package org.skypulse.handlers.logs;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import org.skypulse.config.database.DatabaseManager;
+import io.undertow.util.StatusCodes;
 import org.skypulse.rest.auth.RequireRoles;
 import org.skypulse.utils.QueryUtil;
 import org.skypulse.utils.ResponseUtil;
 
-import java.sql.*;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
 
-import static org.skypulse.utils.DbUtil.setParams;
-
+/**
+ * Uptime logs, newest first.
+ * - Default: offset pages; the total comes from LogCounts instead of a COUNT(*) per request
+ * - ?paging=keyset / ?cursor=: keyset pages on (checked_at, uptime_log_id); ?count=true adds a total
+ * - Rows are streamed from the cursor to the response, see JsonStreamUtil
+ */
 @RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
 public class GetUptimeLogsHandler implements HttpHandler {
 
-    private static final Map<String, String> SORT_MAP = Map.of(
+    static final Map<String, String> SORT_MAP = Map.of(
             "checked", "checked_at",
             "service", "ms.monitored_service_name",
             "status", "status",
             "response", "response_time_ms"
     );
 
-    private static final Map<String, String> FILTER_MAP = Map.of(
+    static final Map<String, String> FILTER_MAP = Map.of(
             "service", "ms.monitored_service_name",
             "status", "status"
     );
 
+    static final String SELECT = """
+            SELECT ul.uptime_log_id, ms.monitored_service_name,
+                   ul.status, ul.response_time_ms, ul.http_status,
+                   ul.error_message, ul.checked_at
+            FROM uptime_logs ul
+            LEFT JOIN monitored_services ms
+                   ON ul.monitored_service_id = ms.monitored_service_id
+            """;
+
+    private static final String COUNT = """
+            SELECT COUNT(*)
+            FROM uptime_logs ul
+            LEFT JOIN monitored_services ms
+                   ON ul.monitored_service_id = ms.monitored_service_id
+            """;
+
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
 
+        Map<String, Deque<String>> params = exchange.getQueryParameters();
+
         QueryUtil.QueryParts qp = QueryUtil.build(
                 exchange,
                 FILTER_MAP,
@@ -37,53 +60,51 @@ public class GetUptimeLogsHandler implements HttpHandler {
                 "checked_at"
         );
 
-        String sql = """
-                SELECT ul.uptime_log_id, ms.monitored_service_name,
-                       ul.status, ul.response_time_ms, ul.http_status,
-                       ul.error_message, ul.checked_at
-                FROM uptime_logs ul
-                LEFT JOIN monitored_services ms
-                       ON ul.monitored_service_id = ms.monitored_service_id
-                """ + qp.where() + qp.orderBy() + " LIMIT ? OFFSET ?";
-
-        String countSql = """
-                SELECT COUNT(*)
-                FROM uptime_logs ul
-                LEFT JOIN monitored_services ms
-                       ON ul.monitored_service_id = ms.monitored_service_id
-                """ + qp.where();
-
-        List<Map<String, Object>> logs = new ArrayList<>();
-        long total = 0;
-
-        try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()) {
-
-            try (PreparedStatement st = conn.prepareStatement(countSql)) {
-                setParams(st, qp.params());
-                ResultSet rs = st.executeQuery();
-                if (rs.next()) total = rs.getLong(1);
-            }
-
-            try (PreparedStatement st = conn.prepareStatement(sql)) {
-                int idx = setParams(st, qp.params());
-                st.setInt(idx++, qp.pageSize());
-                st.setInt(idx, qp.offset());
-
-                ResultSet rs = st.executeQuery();
-                ResultSetMetaData md = rs.getMetaData();
-                int colCount = md.getColumnCount();
-
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= colCount; i++) {
-                        row.put(md.getColumnLabel(i), rs.getObject(i));
-                    }
-                    logs.add(row);
-                }
-            }
+        if (LogPage.useKeyset(params, "checked")) {
+            sendKeysetPage(exchange, params, qp);
+            return;
+        }
+
+        String sql = SELECT + qp.where() + qp.orderBy() + " LIMIT ? OFFSET ?";
+
+        LogCounts.Total total = LogCounts.shared().total("uptime_logs", COUNT + qp.where(), qp.params());
+
+        List<Object> sqlParams = new ArrayList<>(qp.params());
+        sqlParams.add(qp.pageSize());
+        sqlParams.add(qp.offset());
+
+        LogPage.sendOffset(exchange, "uptime_logs", sql, sqlParams, qp.page(), qp.pageSize(), total, null);
+    }
+
+    private void sendKeysetPage(HttpServerExchange exchange, Map<String, Deque<String>> params,
+                                QueryUtil.QueryParts qp) throws SQLException, IOException {
+        boolean ascending = LogPage.ascending(params);
+        int pageSize = LogPage.pageSize(params, qp.pageSize());
+        LogPage.Cursor cursor;
+        try {
+            cursor = LogPage.cursor(params, ascending);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
         }
 
-        ResponseUtil.sendPaginated(exchange, "uptime_logs",
-                qp.page(), qp.pageSize(), (int) total, logs);
+        String sql = SELECT + qp.where()
+                + (cursor != null ? LogPage.seek("ul.checked_at", "ul.uptime_log_id", ascending) : "")
+                + LogPage.orderBy("ul.checked_at", "ul.uptime_log_id", ascending)
+                + " LIMIT ?";
+
+        List<Object> sqlParams = new ArrayList<>(qp.params());
+        if (cursor != null) {
+            sqlParams.add(cursor.at());
+            sqlParams.add(cursor.id());
+        }
+        sqlParams.add(pageSize + 1);
+
+        LogCounts.Total total = LogPage.wantsCount(params)
+                ? LogCounts.shared().total("uptime_logs", COUNT + qp.where(), qp.params())
+                : null;
+
+        LogPage.sendKeyset(exchange, "uptime_logs", sql, sqlParams, pageSize, ascending,
+                "checked_at", "uptime_log_id", total, null);
     }
 }
@@ -0,0 +1,105 @@
+package org.skypulse.handlers.logs;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.config.database.JdbcUtils;
+import org.skypulse.rest.auth.RequireRoles;
+import org.skypulse.tasks.rollup.UptimeRollups;
+import org.skypulse.utils.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Uptime rollups for charts and dashboards.
+ * Query params: period (days, default 7), service_id (optional), granularity (1m, 1h, 1d; default by period),
+ * buckets=false to return only the per-service summary.
+ */
+@RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
+public class GetUptimeRollupsHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GetUptimeRollupsHandler.class);
+
+    private static final int MAX_PERIOD_DAYS = 366;
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this);
+            return;
+        }
+
+        Map<String, Deque<String>> params = exchange.getQueryParameters();
+
+        int days;
+        Long serviceId;
+        UptimeRollups.Granularity granularity;
+        try {
+            String period = DatabaseUtils.getParam(params, "period");
+            days = (period == null || period.isBlank()) ? 7 : Integer.parseInt(period);
+            if (days < 1 || days > MAX_PERIOD_DAYS) {
+                ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, "period must be between 1 and " + MAX_PERIOD_DAYS);
+                return;
+            }
+
+            String serviceParam = DatabaseUtils.getParam(params, "service_id");
+            serviceId = (serviceParam == null || serviceParam.isBlank()) ? null : Long.parseLong(serviceParam);
+
+            String granularityParam = DatabaseUtils.getParam(params, "granularity");
+            granularity = (granularityParam == null || granularityParam.isBlank())
+                    ? UptimeRollups.Granularity.forPeriodDays(days)
+                    : UptimeRollups.Granularity.fromCode(granularityParam);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        boolean includeBuckets = !"false".equalsIgnoreCase(DatabaseUtils.getParam(params, "buckets"));
+
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusDays(days);
+
+        try (Connection conn = JdbcUtils.getConnection()) {
+            List<UptimeRollups.Bucket> buckets = UptimeRollups.load(conn, serviceId, granularity, from, to);
+
+            Map<Long, String> names = new HashMap<>();
+            List<Map<String, Object>> bucketRows = new ArrayList<>();
+            for (UptimeRollups.Bucket b : buckets) {
+                names.putIfAbsent(b.serviceId(), b.serviceName());
+                if (!includeBuckets) continue;
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("service_id", b.serviceId());
+                row.put("bucket_start", b.bucketStart().toString());
+                row.putAll(b.stats().toMap());
+                bucketRows.add(row);
+            }
+
+            List<Map<String, Object>> summary = new ArrayList<>();
+            for (Map.Entry<Long, UptimeRollups.Stats> entry : UptimeRollups.summarize(buckets).entrySet()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("service_id", entry.getKey());
+                row.put("service_name", names.get(entry.getKey()));
+                row.putAll(entry.getValue().toMap());
+                summary.add(row);
+            }
+
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("granularity", granularity.code());
+            data.put("from", from.toString());
+            data.put("to", to.toString());
+            data.put("summary", summary);
+            if (includeBuckets) data.put("buckets", bucketRows);
+
+            ResponseUtil.sendSuccess(exchange, "Uptime rollups fetched successfully", data);
+        } catch (Exception e) {
+            logger.error("Failed to load uptime rollups: {}", e.getMessage(), e);
+            ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR, "Failed to load uptime rollups");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.skypulse.handlers.logs;
+
+import org.skypulse.config.database.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Row totals for the log endpoints without a COUNT(*) per request.
+ * - Unfiltered: planner estimate from pg_class.reltuples, summed over partitions
+ * - Unfiltered below EXACT_BELOW rows (or never analyzed, reltuples -1): counted like a filtered query
+ * - Filtered: exact count cached by query and parameters; once older than TTL_MILLIS the stale
+ *   value is served while a background thread recounts
+ * - Total.estimated is false only when the rows were counted for this request
+ */
+final class LogCounts {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogCounts.class);
+
+    private static final long TTL_MILLIS = 60_000;
+    private static final int MAX_ENTRIES = 256;
+    private static final long EXACT_BELOW = 100_000;
+
+    private static final LogCounts SHARED = new LogCounts();
+
+    record Total(long count, boolean estimated) {}
+
+    private record Entry(long count, long countedAt) {}
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Set<String> refreshing = new HashSet<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "log-count-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private LogCounts() {}
+
+    static LogCounts shared() {
+        return SHARED;
+    }
+
+    /** Estimate when the query has no filters and the table is large, otherwise the cached exact count. */
+    Total total(String table, String countSql, List<Object> params) throws SQLException {
+        if (!params.isEmpty()) return count(countSql, params);
+        Total estimate = estimate(table);
+        return estimate.count() < EXACT_BELOW ? count(countSql, params) : estimate;
+    }
+
+    /** Estimated rows of a table; partitioned tables report 0 themselves, so their children are summed. */
+    Total estimate(String table) throws SQLException {
+        String key = "estimate:" + table;
+        Entry cached = fresh(key);
+        if (cached != null) return new Total(cached.count(), true);
+
+        String sql = """
+            SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint
+            FROM pg_class c
+            WHERE c.oid = ?::regclass
+               OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = ?::regclass)
+            """;
+        long count;
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                count = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        store(key, count);
+        return new Total(count, true);
+    }
+
+    /**
+     * Cached result of countSql. Counted inline only the first time a query is seen;
+     * afterwards a stale value is returned and refreshed in the background.
+     */
+    Total count(String countSql, List<Object> params) throws SQLException {
+        String key = countSql + "|" + params;
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            long count = runCount(countSql, params);
+            store(key, count);
+            return new Total(count, false);
+        }
+        if (System.currentTimeMillis() - entry.countedAt() > TTL_MILLIS) refreshLater(key, countSql, params);
+        return new Total(entry.count(), true);
+    }
+
+    private void refreshLater(String key, String countSql, List<Object> params) {
+        synchronized (this) {
+            if (!refreshing.add(key)) return;
+        }
+        List<Object> copy = new ArrayList<>(params);
+        refresher.execute(() -> {
+            try {
+                store(key, runCount(countSql, copy));
+            } catch (SQLException e) {
+                logger.warn("Log count refresh failed: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    refreshing.remove(key);
+                }
+            }
+        });
+    }
+
+    private static long runCount(String countSql, List<Object> params) throws SQLException {
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement(countSql)) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private synchronized Entry fresh(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && System.currentTimeMillis() - entry.countedAt() <= TTL_MILLIS ? entry : null;
+    }
+
+    private synchronized void store(String key, long count) {
+        entries.put(key, new Entry(count, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,151 @@
+package org.skypulse.handlers.logs;
+
+import io.undertow.server.HttpServerExchange;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.utils.JsonStreamUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Keyset pagination for the log endpoints, newest first on (timestamp, id).
+ * - Opt-in: ?paging=keyset starts at the first page, ?cursor= continues after the last row of the previous one
+ * - The cursor is opaque to clients: base64url of direction, timestamp and id
+ * - Offset paging stays the default, as does ?page= or a sort on another column
+ * - Both modes stream rows through JsonStreamUtil; offset pages keep the current_page/last_page shape
+ */
+final class LogPage {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    /** Key used for rows whose timestamp is NULL; see nullableKey. */
+    static final LocalDateTime NULL_KEY = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    record Cursor(boolean ascending, LocalDateTime at, long id) {}
+
+    private LogPage() {}
+
+    /** Keyset applies when the caller opts in with ?cursor= or ?paging=keyset, has no page number and sorts by sortKey. */
+    static boolean useKeyset(Map<String, Deque<String>> params, String sortKey) {
+        boolean requested = params.containsKey("cursor")
+                || "keyset".equalsIgnoreCase(DatabaseUtils.getParam(params, "paging"));
+        if (!requested || params.containsKey("page")) return false;
+        String sort = DatabaseUtils.getParam(params, "sort");
+        if (sort == null || sort.isBlank()) return true;
+        String[] parts = sort.split(",");
+        return parts.length == 1 && parts[0].trim().toLowerCase().startsWith(sortKey + ":");
+    }
+
+    static boolean ascending(Map<String, Deque<String>> params) {
+        String sort = DatabaseUtils.getParam(params, "sort");
+        return sort != null && sort.trim().toLowerCase().endsWith(":asc");
+    }
+
+    static int pageSize(Map<String, Deque<String>> params, int fallback) {
+        int size = DatabaseUtils.parseIntParam(params.get("pageSize"), fallback);
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /** Decoded ?cursor=, or null on the first page. Throws IllegalArgumentException when malformed. */
+    static Cursor cursor(Map<String, Deque<String>> params, boolean ascending) {
+        String token = DatabaseUtils.getParam(params, "cursor");
+        if (token == null || token.isBlank()) return null;
+        Cursor cursor = decode(token.trim());
+        if (cursor.ascending() != ascending) throw new IllegalArgumentException("Cursor does not match the sort order");
+        return cursor;
+    }
+
+    /**
+     * Key expression for a nullable timestamp column, to pass as tsColumn to seek and orderBy.
+     * NULL rows sort as NULL_KEY, so they stay reachable and their cursor decodes; matches the
+     * expression indexes in SkyPulse_DDL.sql.
+     */
+    static String nullableKey(String tsColumn) {
+        return "COALESCE(" + tsColumn + ", TIMESTAMP 'epoch')";
+    }
+
+    /** " AND (ts, id) < (?, ?)" for the given direction; bind cursor.at() then cursor.id(). */
+    static String seek(String tsColumn, String idColumn, boolean ascending) {
+        return " AND (" + tsColumn + ", " + idColumn + ") " + (ascending ? ">" : "<") + " (?, ?) ";
+    }
+
+    static String orderBy(String tsColumn, String idColumn, boolean ascending) {
+        String dir = ascending ? " ASC" : " DESC";
+        return " ORDER BY " + tsColumn + dir + ", " + idColumn + dir;
+    }
+
+    /** Cursor for the row after which the next page starts; a NULL timestamp encodes as NULL_KEY. */
+    static String next(boolean ascending, Object at, Object id) {
+        LocalDateTime time = at == null ? NULL_KEY
+                : at instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) at;
+        String raw = (ascending ? "a" : "d") + "|" + time + "|" + ((Number) id).longValue();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static boolean wantsCount(Map<String, Deque<String>> params) {
+        return "true".equalsIgnoreCase(DatabaseUtils.getParam(params, "count"));
+    }
+
+    /**
+     * Stream one keyset page. sql must select pageSize + 1 rows; tsLabel and idLabel name the key columns
+     * in the result. total is null unless the caller asked for it.
+     */
+    static void sendKeyset(HttpServerExchange exchange, String domain, String sql, List<Object> params, int pageSize,
+                           boolean ascending, String tsLabel, String idLabel, LogCounts.Total total,
+                           JsonStreamUtil.RowHook extras) throws SQLException, IOException {
+        Object[] lastKey = new Object[2];
+
+        Map<String, Object> head = new LinkedHashMap<>();
+        head.put("domain", domain);
+        head.put("page_size", pageSize);
+        if (total != null) {
+            head.put("total_count", total.count());
+            head.put("total_estimated", total.estimated());
+        }
+
+        JsonStreamUtil.sendRows(exchange, head, sql, params, pageSize,
+                (rs, gen) -> {
+                    lastKey[0] = rs.getObject(tsLabel);
+                    lastKey[1] = rs.getObject(idLabel);
+                    if (extras != null) extras.accept(rs, gen);
+                },
+                result -> {
+                    Map<String, Object> tail = new LinkedHashMap<>();
+                    tail.put("next_cursor", result.more() ? next(ascending, lastKey[0], lastKey[1]) : null);
+                    tail.put("has_more", result.more());
+                    return tail;
+                });
+    }
+
+    /** Stream one offset page in the ResponseUtil.sendPaginated shape, plus total_estimated. */
+    static void sendOffset(HttpServerExchange exchange, String domain, String sql, List<Object> params,
+                           int page, int pageSize, LogCounts.Total total, JsonStreamUtil.RowHook extras) throws SQLException, IOException {
+        Map<String, Object> head = new LinkedHashMap<>();
+        head.put("domain", domain);
+        head.put("current_page", page);
+        head.put("last_page", (int) Math.ceil((double) total.count() / pageSize));
+        head.put("page_size", pageSize);
+        head.put("total_count", total.count());
+        head.put("total_estimated", total.estimated());
+
+        JsonStreamUtil.sendRows(exchange, head, sql, params, -1, extras, null);
+    }
+
+    private static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !(parts[0].equals("a") || parts[0].equals("d"))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(parts[0].equals("a"), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
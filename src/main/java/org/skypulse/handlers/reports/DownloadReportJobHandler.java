@@ -0,0 +1,65 @@
+package org.skypulse.handlers.reports;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.config.database.dtos.UserContext;
+import org.skypulse.utils.HttpRequestUtil;
+import org.skypulse.utils.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+
+/**
+ * Download the PDF of a finished report job, with ETag and Range support. download=true forces an attachment.
+ */
+public class DownloadReportJobHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadReportJobHandler.class);
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (HttpRequestUtil.dispatchIfIoThread(exchange, this)) return;
+
+        UserContext ctx = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
+        if (ctx == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.UNAUTHORIZED, "User context missing");
+            return;
+        }
+
+        // Another user's job answers 404 too, so job ids cannot be probed
+        ReportJobs.Job job = ReportJobs.shared().get(DatabaseUtils.getParam(exchange.getQueryParameters(), "job_id"), ctx.userId());
+        if (job == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.NOT_FOUND, "Report job not found or expired");
+            return;
+        }
+
+        switch (job.state()) {
+            case QUEUED, RUNNING -> {
+                ReportDownloads.sendAccepted(exchange, job);
+                return;
+            }
+            case FAILED -> {
+                ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR, "Report job failed");
+                return;
+            }
+            default -> { }
+        }
+
+        ReportJobs.Artifact artifact = job.artifact();
+        if (artifact == null || !Files.exists(artifact.file())) {
+            ResponseUtil.sendError(exchange, StatusCodes.GONE, "Report expired, submit it again");
+            return;
+        }
+
+        boolean forceDownload = ReportRequest.isTrue(DatabaseUtils.getParam(exchange.getQueryParameters(), "download"));
+        try {
+            ReportDownloads.send(exchange, artifact, job.request().filename(), forceDownload);
+        } catch (Exception e) {
+            logger.error("Failed to send report job {}: {}", job.id(), e.getMessage(), e);
+            ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR, "Failed to send report");
+        }
+    }
+}
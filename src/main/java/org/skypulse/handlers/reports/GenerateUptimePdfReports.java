@@ -1,21 +1,15 @@
 package org.skypulse.handlers.reports;
 
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import com.openhtmltopdf.svgsupport.BatikSVGDrawer;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.util.Headers;
 
 import org.skypulse.config.database.JdbcUtils;
-import org.skypulse.config.database.DatabaseUtils;
-import org.skypulse.utils.ResponseUtil;
+import org.skypulse.tasks.rollup.UptimeRollups;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.ByteBuffer;
-
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -37,63 +31,88 @@ public class GenerateUptimePdfReports implements HttpHandler {
             return;
         }
 
-        String filterPeriod = DatabaseUtils.getParam(exchange.getQueryParameters(), "period");
-        if (filterPeriod == null || filterPeriod.isBlank()) filterPeriod = "7";
+        ReportDownloads.renderAndSend(exchange, ReportRequest.UPTIME);
+    }
 
-        int days;
-        try {
-            days = Integer.parseInt(filterPeriod);
-        } catch (NumberFormatException e) {
-            ResponseUtil.sendError(exchange, 400, "Invalid period value: must be an integer");
-            return;
-        }
+    /**
+     * Render the uptime report for request into target. Called on a ReportJobs renderer thread.
+     */
+    static void render(ReportRequest request, Path target) throws Exception {
+        int days = request.days();
+        Long serviceId = request.serviceId();
+        String statusFilter = request.status();
 
-        String serviceIdParam = DatabaseUtils.getParam(exchange.getQueryParameters(), "service_id");
-        Long serviceId = (serviceIdParam != null && !serviceIdParam.isBlank())
-                ? Long.parseLong(serviceIdParam)
-                : null;
+        String summaryRows = buildSummaryRows(days, serviceId);
 
-        String statusFilter = DatabaseUtils.getParam(exchange.getQueryParameters(), "status");
+        StringBuilder filtersHtml = new StringBuilder("<ul style='list-style: none; padding: 0;'>");
 
-        String downloadParam = DatabaseUtils.getParam(exchange.getQueryParameters(), "download");
-        boolean forceDownload =
-                "1".equals(downloadParam) ||
-                        "true".equalsIgnoreCase(downloadParam) ||
-                        "yes".equalsIgnoreCase(downloadParam);
+        filtersHtml.append("<li><strong>Period:</strong> ").append(days).append(" day(s)</li>");
+        filtersHtml.append("<li><strong>Service ID:</strong> ").append(
+                serviceId != null ? serviceId : "All"
+        ).append("</li>");
+        filtersHtml.append("<li><strong>Status:</strong> ").append(
+                statusFilter != null ? statusFilter : "All"
+        ).append("</li>");
 
-        try {
-            List<String> rows = new ArrayList<>();
+        filtersHtml.append("</ul>");
 
-            StringBuilder sqlBuilder = new StringBuilder("""
-                SELECT 
-                    ms.monitored_service_name,
-                    ul.status,
-                    ul.response_time_ms,
-                    ul.http_status,
-                    ul.error_message,
-                    ul.checked_at
-                FROM uptime_logs ul
-                INNER JOIN monitored_services ms 
-                       ON ms.monitored_service_id = ul.monitored_service_id
-                WHERE ul.checked_at >= NOW() - (? || ' days')::interval
-            """);
+        Map<String, String> replacements = Map.of(
+                "{{DATE_ISSUED}}", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                "{{SUMMARY_ROWS}}", summaryRows,
+                "{{FILTERS_APPLIED}}", filtersHtml.toString()
+        );
 
-            if (serviceId != null) sqlBuilder.append(" AND ms.monitored_service_id = ?");
-            if (statusFilter != null && !statusFilter.isBlank()) sqlBuilder.append(" AND ul.status = ?");
+        try (StreamingPdfReport report = new StreamingPdfReport(loadHtmlTemplate(), "{{UPTIME_ROWS}}", replacements, 7)) {
 
-            sqlBuilder.append(" ORDER BY ul.checked_at DESC"); // newest first
+            if (request.detail()) {
+                writeDetailRows(report, days, serviceId, statusFilter);
+                if (report.rows() == 0) report.notice("No records found");
+            } else {
+                report.notice("Individual checks are omitted for periods over " + ReportRequest.DETAIL_MAX_DAYS
+                        + " days; add detail=true to include them");
+            }
 
-            String sql = sqlBuilder.toString();
+            report.render(target);
+            logger.info("Uptime PDF rendered (period={}d, rows={})", days, report.rows());
+        }
+    }
 
-            try (Connection conn = JdbcUtils.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+    /**
+     * Streams raw checks through a server-side cursor straight into the report file.
+     */
+    private static void writeDetailRows(StreamingPdfReport report, int days, Long serviceId, String statusFilter) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder("""
+            SELECT
+                ms.monitored_service_name,
+                ul.status,
+                ul.response_time_ms,
+                ul.http_status,
+                ul.error_message,
+                ul.checked_at
+            FROM uptime_logs ul
+            INNER JOIN monitored_services ms
+                   ON ms.monitored_service_id = ul.monitored_service_id
+            WHERE ul.checked_at >= NOW() - (? || ' days')::interval
+        """);
+
+        if (serviceId != null) sqlBuilder.append(" AND ms.monitored_service_id = ?");
+        if (statusFilter != null) sqlBuilder.append(" AND ul.status = ?");
+
+        sqlBuilder.append(" ORDER BY ul.checked_at DESC"); // newest first
+
+        try (Connection conn = JdbcUtils.getConnection()) {
+            // pgjdbc only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sqlBuilder.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(StreamingPdfReport.FETCH_SIZE);
 
                 int index = 1;
                 ps.setInt(index++, days);
 
                 if (serviceId != null) ps.setLong(index++, serviceId);
-                if (statusFilter != null && !statusFilter.isBlank())
-                    ps.setString(index, statusFilter.toUpperCase());
+                if (statusFilter != null) ps.setString(index, statusFilter);
 
                 DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -101,10 +120,14 @@ public class GenerateUptimePdfReports implements HttpHandler {
 
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
+                        if (report.isFull()) {
+                            report.markTruncated();
+                            break;
+                        }
 
                         String status = rs.getString("status");
 
-                        String row = String.format("""
+                        report.row(String.format("""
                             <tr>
                               <td class="center">%d</td>
                               <td>%s</td>
@@ -113,8 +136,7 @@ public class GenerateUptimePdfReports implements HttpHandler {
                               <td class="center">%s</td>
                               <td>%s</td>
                               <td>%s</td>
-                            </tr>
-                        """,
+                            </tr>""",
                                 counter++,
                                 rs.getString("monitored_service_name"),
                                 "UP".equalsIgnoreCase(status) ? "up" : "down",
@@ -125,85 +147,73 @@ public class GenerateUptimePdfReports implements HttpHandler {
                                         ? rs.getTimestamp("checked_at").toLocalDateTime().format(df)
                                         : "-",
                                 rs.getString("error_message") != null ? rs.getString("error_message") : "-"
-                        );
-
-                        rows.add(row);
+                        ));
                     }
                 }
+            } finally {
+                conn.rollback();
             }
+        }
+    }
 
-            StringBuilder filtersHtml = new StringBuilder("<ul style='list-style: none; padding: 0;'>");
-
-            filtersHtml.append("<li><strong>Period:</strong> ").append(days).append(" day(s)</li>");
-            filtersHtml.append("<li><strong>Service ID:</strong> ").append(
-                    serviceId != null ? serviceId : "All"
-            ).append("</li>");
-            filtersHtml.append("<li><strong>Status:</strong> ").append(
-                    statusFilter != null && !statusFilter.isBlank()
-                            ? statusFilter.toUpperCase()
-                            : "All"
-            ).append("</li>");
-
-            filtersHtml.append("</ul>");
-
-            String html = loadHtmlTemplate()
-                    .replace("{{DATE_ISSUED}}",
-                            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
-                    )
-                    .replace("{{UPTIME_ROWS}}",
-                            rows.isEmpty()
-                                    ? "<tr><td colspan='7' style='text-align:center'>No records found</td></tr>"
-                                    : String.join("\n", rows)
-                    )
-                    .replace("{{FILTERS_APPLIED}}", filtersHtml.toString());
-
-            ByteArrayOutputStream pdfStream = new ByteArrayOutputStream();
-
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-            builder.useSVGDrawer(new BatikSVGDrawer());
-
-            builder.useUriResolver((baseUri, uri) -> {
-                if (uri.startsWith("assets/") || uri.startsWith("images/") || uri.startsWith("logos/")) {
-                    return GenerateUptimePdfReports.class
-                            .getClassLoader()
-                            .getResource(uri)
-                            .toString();
-                }
-                return uri;
-            });
-
-            builder.withHtmlContent(html, null);
-            builder.toStream(pdfStream);
-            builder.run();
-
-            byte[] pdfBytes = pdfStream.toByteArray();
-
-            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/pdf");
+    /**
+     * One row per service from uptime_rollups; reads a handful of buckets per service instead of every check.
+     */
+    private static String buildSummaryRows(int days, Long serviceId) throws Exception {
+        LocalDateTime to = LocalDateTime.now();
+        List<UptimeRollups.Bucket> buckets;
+        try (Connection conn = JdbcUtils.getConnection()) {
+            buckets = UptimeRollups.load(conn, serviceId, UptimeRollups.Granularity.forPeriodDays(days), to.minusDays(days), to);
+        }
 
-            if (forceDownload) {
-                exchange.getResponseHeaders().put(
-                        Headers.CONTENT_DISPOSITION,
-                        "attachment; filename=\"Uptime_Report.pdf\""
-                );
-            } else {
-                exchange.getResponseHeaders().put(
-                        Headers.CONTENT_DISPOSITION,
-                        "inline; filename=\"Uptime_Report.pdf\""
-                );
-            }
+        Map<Long, String> names = new HashMap<>();
+        for (UptimeRollups.Bucket b : buckets) names.putIfAbsent(b.serviceId(), b.serviceName());
+
+        List<String> rows = new ArrayList<>();
+        for (Map.Entry<Long, UptimeRollups.Stats> entry : UptimeRollups.summarize(buckets).entrySet()) {
+            UptimeRollups.Stats s = entry.getValue();
+            Double uptime = s.uptimePercent();
+            rows.add(String.format("""
+                <tr>
+                  <td>%s</td>
+                  <td class="center">%d</td>
+                  <td class="center %s">%s</td>
+                  <td class="center">%s</td>
+                  <td class="center">%s</td>
+                  <td class="center">%s</td>
+                  <td class="center">%s</td>
+                  <td class="center">%s</td>
+                </tr>
+            """,
+                    names.get(entry.getKey()),
+                    s.checks(),
+                    uptime != null && uptime >= 99.0 ? "up" : "down",
+                    uptime != null ? String.format("%.2f", uptime) : "-",
+                    s.minLatencyMs() != null ? s.minLatencyMs() : "-",
+                    s.avgLatencyMs() != null ? Math.round(s.avgLatencyMs()) : "-",
+                    s.maxLatencyMs() != null ? s.maxLatencyMs() : "-",
+                    s.p95LatencyMs() != null ? s.p95LatencyMs() : "-",
+                    formatDuration(s.downtimeSeconds())
+            ));
+        }
 
-            exchange.getResponseSender().send(ByteBuffer.wrap(pdfBytes));
-            logger.info("Uptime PDF streamed to client (download=" + forceDownload + ")");
+        return rows.isEmpty()
+                ? "<tr><td colspan='8' style='text-align:center'>No records found</td></tr>"
+                : String.join("\n", rows);
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to generate Uptime PDF", e);
-            ResponseUtil.sendError(exchange, 500, "Failed to generate uptime PDF: " + e.getMessage());
-        }
+    private static String formatDuration(long seconds) {
+        if (seconds <= 0) return "-";
+        long days = seconds / 86_400;
+        long hours = (seconds % 86_400) / 3_600;
+        long minutes = (seconds % 3_600) / 60;
+        if (days > 0) return days + "d " + hours + "h";
+        if (hours > 0) return hours + "h " + minutes + "m";
+        return Math.max(minutes, 1) + "m";
     }
 
-    private String loadHtmlTemplate() throws Exception {
-        try (var is = getClass().getClassLoader()
+    private static String loadHtmlTemplate() throws Exception {
+        try (var is = GenerateUptimePdfReports.class.getClassLoader()
                 .getResourceAsStream("templates/pdf/uptime-report.html")) {
 
             if (is == null) throw new RuntimeException("HTML template not found");
@@ -0,0 +1,35 @@
+package org.skypulse.handlers.reports;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.config.database.dtos.UserContext;
+import org.skypulse.utils.HttpRequestUtil;
+import org.skypulse.utils.ResponseUtil;
+
+/**
+ * Status of a report job: QUEUED, RUNNING, DONE or FAILED.
+ */
+public class GetReportJobHandler implements HttpHandler {
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (HttpRequestUtil.dispatchIfIoThread(exchange, this)) return;
+
+        UserContext ctx = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
+        if (ctx == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.UNAUTHORIZED, "User context missing");
+            return;
+        }
+
+        // Another user's job answers 404 too, so job ids cannot be probed
+        ReportJobs.Job job = ReportJobs.shared().get(DatabaseUtils.getParam(exchange.getQueryParameters(), "job_id"), ctx.userId());
+        if (job == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.NOT_FOUND, "Report job not found or expired");
+            return;
+        }
+
+        ResponseUtil.sendSuccess(exchange, "Report job fetched successfully", job.toMap());
+    }
+}
@@ -0,0 +1,206 @@
+package org.skypulse.handlers.reports;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.config.database.dtos.UserContext;
+import org.skypulse.utils.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves rendered report artifacts.
+ * - Strong ETag from the content hash; If-None-Match answers 304
+ * - Single byte ranges (bytes=a-b, a-, -n) answer 206; If-Range falls back to the full body on mismatch
+ * - Multi-range requests get the full body, which RFC 9110 allows
+ */
+final class ReportDownloads {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportDownloads.class);
+
+    /** How long the legacy GET routes keep the request open for a render before answering 202 with the job. */
+    private static final long SYNC_WAIT_SECONDS = 60;
+
+    private record Range(long start, long end) {}
+
+    private static final Range UNSATISFIABLE = new Range(-1, -1);
+
+    private ReportDownloads() {}
+
+    /**
+     * Legacy /pdf routes: submit (or reuse) a job and stream the result when it is ready.
+     * The exchange is suspended while the job renders, so no worker thread waits on it; the job's
+     * completion dispatches the response back onto a worker.
+     */
+    static void renderAndSend(HttpServerExchange exchange, String type) {
+        // A 202 from here points at the job, so it must belong to the caller like any submitted job
+        UserContext ctx = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
+        if (ctx == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.UNAUTHORIZED, "User context missing");
+            return;
+        }
+
+        ReportRequest request;
+        try {
+            request = ReportRequest.parse(type, exchange.getQueryParameters());
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        boolean forceDownload = ReportRequest.isTrue(DatabaseUtils.getParam(exchange.getQueryParameters(), "download"));
+
+        ReportJobs.Job job;
+        try {
+            job = ReportJobs.shared().submit(request, ctx.userId());
+        } catch (RejectedExecutionException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.SERVICE_UNAVAILABLE, "Report renderer is busy, try again shortly");
+            return;
+        }
+
+        exchange.dispatch(SameThreadExecutor.INSTANCE, () -> job.completion()
+                .orTimeout(SYNC_WAIT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((artifact, error) -> exchange.dispatch(() -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof TimeoutException) {
+                        sendAccepted(exchange, job);
+                    } else if (cause != null) {
+                        ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR,
+                                "Failed to generate " + type + " PDF: " + cause.getMessage());
+                    } else {
+                        try {
+                            send(exchange, artifact, request.filename(), forceDownload);
+                        } catch (Exception e) {
+                            logger.error("Failed to send {} PDF: {}", type, e.getMessage(), e);
+                            if (!exchange.isResponseStarted()) {
+                                ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR, "Failed to send " + type + " PDF");
+                            } else {
+                                exchange.endExchange();
+                            }
+                        }
+                    }
+                })));
+    }
+
+    static void sendAccepted(HttpServerExchange exchange, ReportJobs.Job job) {
+        Map<String, Object> res = new HashMap<>();
+        res.put("message", "Report job " + job.state().name().toLowerCase());
+        res.put("data", job.toMap());
+        ResponseUtil.sendJson(exchange, StatusCodes.ACCEPTED, res);
+    }
+
+    static void send(HttpServerExchange exchange, ReportJobs.Artifact artifact, String filename, boolean download) throws IOException {
+        String etag = "\"" + artifact.etag() + "\"";
+        HeaderMap request = exchange.getRequestHeaders();
+        HeaderMap response = exchange.getResponseHeaders();
+
+        response.put(Headers.ETAG, etag);
+        response.put(Headers.ACCEPT_RANGES, "bytes");
+        response.put(Headers.CACHE_CONTROL, "private, max-age=0, must-revalidate");
+        response.put(
+                Headers.CONTENT_DISPOSITION,
+                (download ? "attachment" : "inline") + "; filename=\"" + filename + "\""
+        );
+
+        if (matches(request.getFirst(Headers.IF_NONE_MATCH), etag)) {
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+
+        long size = artifact.size();
+        Range range = new Range(0, size - 1);
+
+        String ifRange = request.getFirst(Headers.IF_RANGE);
+        Range requested = (ifRange == null || ifRange.equals(etag)) ? parseRange(request.getFirst(Headers.RANGE), size) : null;
+
+        if (requested == UNSATISFIABLE) {
+            response.put(Headers.CONTENT_RANGE, "bytes */" + size);
+            exchange.setStatusCode(StatusCodes.REQUEST_RANGE_NOT_SATISFIABLE);
+            exchange.endExchange();
+            return;
+        }
+        if (requested != null) {
+            range = requested;
+            exchange.setStatusCode(StatusCodes.PARTIAL_CONTENT);
+            response.put(Headers.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+        }
+
+        long length = range.end() - range.start() + 1;
+        response.put(Headers.CONTENT_TYPE, "application/pdf");
+        response.put(Headers.CONTENT_LENGTH, length);
+
+        if (!exchange.isBlocking()) exchange.startBlocking();
+        try (InputStream in = Files.newInputStream(artifact.file())) {
+            in.skipNBytes(range.start());
+            OutputStream out = exchange.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) break;
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        exchange.endExchange();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Null when the header is absent, malformed or multi-range (serve the full body).
+     */
+    private static Range parseRange(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.isEmpty() || spec.contains(",")) return null;
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) {
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) return UNSATISFIABLE;
+                return new Range(Math.max(size - suffix, 0), size - 1);
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= size) return UNSATISFIABLE;
+            return new Range(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.skypulse.handlers.reports;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * ReportJobs renders PDF reports off the request threads.
+ * - submit() returns a Job at once; a bounded pool of RENDER_THREADS renders into the cache directory
+ * - Identical requests (same ReportRequest.cacheKey()) share the running render or reuse a fresh artifact
+ * - Every job belongs to the user who submitted it; get() hides it from anyone else
+ * - Artifacts are stored under their content hash, which doubles as the ETag; they expire after ARTIFACT_TTL
+ * - When the queue is full submit() throws RejectedExecutionException so callers can answer 503
+ */
+public final class ReportJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobs.class);
+
+    private static final int RENDER_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final Duration ARTIFACT_TTL = Duration.ofMinutes(10);
+    private static final Duration JOB_TTL = Duration.ofMinutes(30);
+
+    private static final ReportJobs SHARED = new ReportJobs(
+            Paths.get(System.getProperty("java.io.tmpdir"), "skypulse-reports"));
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * A rendered PDF on disk. etag is the hex SHA-256 of the file.
+     */
+    public record Artifact(Path file, String etag, long size, Instant createdAt) {
+        boolean isFresh() {
+            return createdAt.plus(ARTIFACT_TTL).isAfter(Instant.now()) && Files.exists(file);
+        }
+    }
+
+    public static final class Job {
+        private final String id;
+        private final ReportRequest request;
+        private final long ownerId;
+        // Another user's render this job completes with, or null when it renders itself
+        private final Job follows;
+        private final Instant submittedAt = Instant.now();
+        private final CompletableFuture<Artifact> result = new CompletableFuture<>();
+        private volatile State state = State.QUEUED;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, ReportRequest request, long ownerId, Job follows) {
+            this.id = id;
+            this.request = request;
+            this.ownerId = ownerId;
+            this.follows = follows;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public ReportRequest request() {
+            return request;
+        }
+
+        public State state() {
+            State own = state;
+            return own == State.QUEUED && follows != null ? follows.state() : own;
+        }
+
+        /** Artifact once DONE, otherwise null. */
+        public Artifact artifact() {
+            return result.getNow(null);
+        }
+
+        /** Completes when the job finishes; a copy, so callers cannot complete the job themselves. */
+        public CompletableFuture<Artifact> completion() {
+            return result.copy();
+        }
+
+        private void complete(Artifact artifact) {
+            state = State.DONE;
+            finishedAt = Instant.now();
+            result.complete(artifact);
+        }
+
+        private void fail(Throwable t) {
+            state = State.FAILED;
+            error = t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+            finishedAt = Instant.now();
+            result.completeExceptionally(t);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("job_id", id);
+            map.put("status", state().name());
+            map.put("request", request.toMap());
+            map.put("submitted_at", submittedAt.toString());
+            if (finishedAt != null) map.put("finished_at", finishedAt.toString());
+            if (error != null) map.put("error", error);
+            Artifact artifact = artifact();
+            if (artifact != null) {
+                map.put("size_bytes", artifact.size());
+                map.put("etag", artifact.etag());
+            }
+            return map;
+        }
+    }
+
+    private final Path cacheDir;
+    private final ThreadPoolExecutor renderers;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Artifact> artifacts = new ConcurrentHashMap<>();
+
+    private ReportJobs(Path cacheDir) {
+        this.cacheDir = cacheDir;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.renderers = new ThreadPoolExecutor(
+                RENDER_THREADS, RENDER_THREADS,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "report-renderer-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        try {
+            Files.createDirectories(cacheDir);
+            // Nothing on disk is indexed after a restart
+            try (Stream<Path> stale = Files.list(cacheDir)) {
+                stale.forEach(ReportJobs::deleteQuietly);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not prepare report cache {}: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    public static ReportJobs shared() {
+        return SHARED;
+    }
+
+    /**
+     * Queue a report for ownerId, or return their job already rendering it, or a finished job backed by
+     * a fresh artifact. When another user is rendering the same report, ownerId gets a job of their own
+     * that completes with that render.
+     */
+    public Job submit(ReportRequest request, long ownerId) {
+        prune();
+
+        String key = request.cacheKey();
+
+        Artifact cached = artifacts.get(key);
+        if (cached != null && cached.isFresh()) {
+            Job job = new Job(UUID.randomUUID().toString(), request, ownerId, null);
+            job.complete(cached);
+            jobs.put(job.id, job);
+            return job;
+        }
+
+        Job created = new Job(UUID.randomUUID().toString(), request, ownerId, null);
+        Job job = inFlight.putIfAbsent(key, created);
+        if (job != null) {
+            if (job.ownerId == ownerId) return job;
+
+            Job follower = new Job(UUID.randomUUID().toString(), request, ownerId, job);
+            jobs.put(follower.id, follower);
+            job.result.whenComplete((artifact, t) -> {
+                if (t == null) follower.complete(artifact); else follower.fail(t);
+            });
+            return follower;
+        }
+
+        jobs.put(created.id, created);
+        try {
+            renderers.execute(() -> run(key, created));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            jobs.remove(created.id);
+            throw e;
+        }
+        return created;
+    }
+
+    /** The job, or null when it does not exist, has expired or belongs to another user. */
+    public Job get(String jobId, long ownerId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.ownerId == ownerId ? job : null;
+    }
+
+    public int queued() {
+        return renderers.getQueue().size();
+    }
+
+    public void shutdown() {
+        renderers.shutdownNow();
+    }
+
+    private void run(String key, Job job) {
+        job.state = State.RUNNING;
+        Path part = null;
+        try {
+            part = Files.createTempFile(cacheDir, "render-", ".part");
+
+            if (ReportRequest.UPTIME.equals(job.request.type())) {
+                GenerateUptimePdfReports.render(job.request, part);
+            } else {
+                GenerateSslPdfReports.render(job.request, part);
+            }
+
+            String etag = sha256(part);
+            Path file = cacheDir.resolve(etag + ".pdf");
+            // Same bytes already cached: keep that file, readers may be streaming it
+            if (Files.exists(file)) {
+                Files.delete(part);
+            } else {
+                Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            part = null;
+
+            Artifact artifact = new Artifact(file, etag, Files.size(file), Instant.now());
+            artifacts.put(key, artifact);
+            job.complete(artifact);
+
+        } catch (Throwable t) {
+            logger.error("Report job {} ({}) failed: {}", job.id, job.request.type(), t.getMessage(), t);
+            job.fail(t);
+        } finally {
+            inFlight.remove(key, job);
+            if (part != null) deleteQuietly(part);
+        }
+    }
+
+    /**
+     * Forget old jobs and expired artifacts; delete files no longer referenced.
+     */
+    private void prune() {
+        Instant jobCutoff = Instant.now().minus(JOB_TTL);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(jobCutoff));
+
+        List<Artifact> expired = new ArrayList<>();
+        artifacts.values().removeIf(a -> {
+            if (a.isFresh()) return false;
+            expired.add(a);
+            return true;
+        });
+
+        for (Artifact a : expired) {
+            boolean referenced = artifacts.values().stream().anyMatch(other -> other.file().equals(a.file()));
+            // Open downloads keep their file handle, so deleting under them is safe
+            if (!referenced) deleteQuietly(a.file());
+        }
+    }
+
+    private static String sha256(Path file) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) md.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+}
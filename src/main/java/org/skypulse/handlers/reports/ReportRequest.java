@@ -0,0 +1,93 @@
+package org.skypulse.handlers.reports;
+
+import org.skypulse.config.database.DatabaseUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Normalized report parameters. Two requests that render the same PDF compare equal and share a cacheKey().
+ * - type: uptime or ssl
+ * - days: period in days
+ * - serviceId, status: optional filters; status is upper-cased
+ * - detail: include individual uptime checks (always false for ssl)
+ */
+public record ReportRequest(String type, int days, Long serviceId, String status, boolean detail) {
+
+    public static final String UPTIME = "uptime";
+    public static final String SSL = "ssl";
+
+    static final int DETAIL_MAX_DAYS = 7;
+
+    /**
+     * Parse period, service_id, status and detail query params. Throws IllegalArgumentException on bad input.
+     */
+    public static ReportRequest parse(String type, Map<String, Deque<String>> params) {
+        if (!UPTIME.equals(type) && !SSL.equals(type)) {
+            throw new IllegalArgumentException("Unknown report type: " + type + " (expected uptime or ssl)");
+        }
+
+        String period = DatabaseUtils.getParam(params, "period");
+        int days;
+        try {
+            days = (period == null || period.isBlank()) ? 7 : Integer.parseInt(period.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid period value: must be an integer");
+        }
+
+        String serviceParam = DatabaseUtils.getParam(params, "service_id");
+        Long serviceId;
+        try {
+            serviceId = (serviceParam == null || serviceParam.isBlank()) ? null : Long.parseLong(serviceParam.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid service_id value: must be an integer");
+        }
+
+        String statusParam = DatabaseUtils.getParam(params, "status");
+        String status = (statusParam == null || statusParam.isBlank()) ? null : statusParam.trim().toUpperCase();
+
+        // Long uptime periods are summarized from rollups; raw checks only on request
+        boolean detail = false;
+        if (UPTIME.equals(type)) {
+            String detailParam = DatabaseUtils.getParam(params, "detail");
+            detail = (detailParam == null || detailParam.isBlank()) ? days <= DETAIL_MAX_DAYS : isTrue(detailParam);
+        }
+
+        return new ReportRequest(type, days, serviceId, status, detail);
+    }
+
+    static boolean isTrue(String value) {
+        return "1".equals(value) || "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value);
+    }
+
+    /** Hex SHA-256 of the normalized parameters. */
+    public String cacheKey() {
+        String canonical = type + "|" + days + "|" + (serviceId != null ? serviceId : "") + "|"
+                + (status != null ? status : "") + "|" + detail;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String filename() {
+        return UPTIME.equals(type) ? "Uptime_Report.pdf" : "SSL_Report.pdf";
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("type", type);
+        map.put("period", days);
+        map.put("service_id", serviceId);
+        map.put("status", status);
+        map.put("detail", detail);
+        return map;
+    }
+}
@@ -0,0 +1,140 @@
+package org.skypulse.handlers.reports;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.svgsupport.BatikSVGDrawer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * StreamingPdfReport renders a row-oriented PDF report without holding the rows in memory.
+ * - The template is split at the rows placeholder; HTML is written row by row to a temp file
+ * - Rows are grouped into tables of ROWS_PER_TABLE so layout never works on one huge table,
+ *   and the table header repeats on every page
+ * - At most MAX_ROWS rows are written; the caller checks isFull() and stops reading its cursor
+ * - The PDF is rendered file to file; ReportJobs owns the output and serves it from its cache
+ */
+final class StreamingPdfReport implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingPdfReport.class);
+
+    static final int FETCH_SIZE = 1_000;
+    static final int ROWS_PER_TABLE = 500;
+    static final int MAX_ROWS = 20_000;
+
+    private static final String TABLE_OPEN = "<table class=\"data-table\">";
+    private static final String TABLE_CLOSE = "</tbody>\n</table>\n";
+
+    private final Path htmlFile;
+    private final Writer html;
+    private final String tableHeader;
+    private final String suffix;
+    private final int columns;
+    private int rows;
+    private boolean truncated;
+
+    /**
+     * @param template     full HTML template
+     * @param placeholder  rows placeholder inside the last data-table tbody, e.g. {{UPTIME_ROWS}}
+     * @param replacements other placeholders, applied before the rows are written
+     * @param columns      column count, used for the colspan of notice rows
+     */
+    StreamingPdfReport(String template, String placeholder, Map<String, String> replacements, int columns) throws IOException {
+        for (Map.Entry<String, String> r : replacements.entrySet()) {
+            template = template.replace(r.getKey(), r.getValue());
+        }
+
+        int at = template.indexOf(placeholder);
+        if (at < 0) throw new IllegalArgumentException("Template has no " + placeholder + " placeholder");
+
+        String prefix = template.substring(0, at);
+        int tableStart = prefix.lastIndexOf(TABLE_OPEN);
+        if (tableStart < 0) throw new IllegalArgumentException("Rows placeholder is not inside a data-table");
+
+        this.tableHeader = prefix.substring(tableStart);
+        this.suffix = template.substring(at + placeholder.length());
+        this.columns = columns;
+
+        this.htmlFile = Files.createTempFile("skypulse-report-", ".html");
+        this.html = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(htmlFile), StandardCharsets.UTF_8));
+        this.html.write(prefix);
+    }
+
+    /** Append one pre-rendered {@code <tr>}. Ignored once MAX_ROWS is reached. */
+    void row(String tr) throws IOException {
+        if (rows >= MAX_ROWS) {
+            truncated = true;
+            return;
+        }
+        if (rows > 0 && rows % ROWS_PER_TABLE == 0) {
+            html.write(TABLE_CLOSE);
+            html.write(tableHeader);
+        }
+        html.write(tr);
+        html.write('\n');
+        rows++;
+    }
+
+    /** Append a full-width notice row, e.g. "No records found". Not counted against MAX_ROWS. */
+    void notice(String text) throws IOException {
+        html.write("<tr><td colspan='" + columns + "' style='text-align:center'>" + text + "</td></tr>\n");
+    }
+
+    boolean isFull() {
+        return rows >= MAX_ROWS;
+    }
+
+    void markTruncated() {
+        truncated = true;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Finish the HTML and render it into target. Resources under images/, assets/ and logos/
+     * resolve from the classpath.
+     */
+    void render(Path target) throws IOException {
+        if (truncated) {
+            notice("Report truncated at " + MAX_ROWS + " rows; narrow the period or filters to see the rest");
+        }
+        html.write(suffix);
+        html.close();
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.useSVGDrawer(new BatikSVGDrawer());
+            builder.useUriResolver((baseUri, uri) -> {
+                if (uri.startsWith("assets/") || uri.startsWith("images/") || uri.startsWith("logos/")) {
+                    URL resource = StreamingPdfReport.class.getClassLoader().getResource(uri);
+                    return resource != null ? resource.toString() : uri;
+                }
+                return uri;
+            });
+            builder.withFile(htmlFile.toFile());
+            builder.toStream(out);
+            builder.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            html.close();
+        } catch (IOException ignored) {}
+        try {
+            Files.deleteIfExists(htmlFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete report temp file {}: {}", htmlFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.skypulse.handlers.reports;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.config.database.dtos.UserContext;
+import org.skypulse.utils.HttpRequestUtil;
+import org.skypulse.utils.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Queue a PDF report. Query params: type (uptime or ssl), period, service_id, status, detail.
+ * Answers 202 with the job; poll /reports/jobs/{job_id} and fetch /reports/jobs/{job_id}/download.
+ * The job belongs to the submitting user; for anyone else both answer 404.
+ */
+public class SubmitReportJobHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmitReportJobHandler.class);
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (HttpRequestUtil.dispatchIfIoThread(exchange, this)) return;
+
+        UserContext ctx = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
+        if (ctx == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.UNAUTHORIZED, "User context missing");
+            return;
+        }
+
+        ReportRequest request;
+        try {
+            request = ReportRequest.parse(DatabaseUtils.getParam(exchange.getQueryParameters(), "type"),
+                    exchange.getQueryParameters());
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        try {
+            ReportJobs.Job job = ReportJobs.shared().submit(request, ctx.userId());
+            logger.info("Report job {} submitted: {} ({})", job.id(), request.type(), job.state());
+            ReportDownloads.sendAccepted(exchange, job);
+        } catch (RejectedExecutionException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.SERVICE_UNAVAILABLE, "Report renderer is busy, try again shortly");
+        }
+    }
+}
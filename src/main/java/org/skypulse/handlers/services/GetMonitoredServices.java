@@ -3,6 +3,7 @@ package org.skypulse.handlers.services;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.utils.ETagUtil;
 import org.skypulse.utils.HttpRequestUtil;
 import org.skypulse.utils.ResponseUtil;
 
@@ -37,10 +38,16 @@ public class GetMonitoredServices implements HttpHandler {
             "check_interval", Integer.class
     );
 
+    // Any insert, update (touch trigger) or delete on monitored_services changes this
+    private static final String VERSION_SQL = """
+            SELECT COUNT(*), MAX(date_modified) FROM monitored_services
+            """;
+
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         if (HttpRequestUtil.dispatchIfIoThread(exchange, this)) return;
 
+        if (ETagUtil.notModified(exchange, ETagUtil.weak(exchange, VERSION_SQL, List.of()))) return;
 
         Map<String, Deque<String>> params = exchange.getQueryParameters();
 
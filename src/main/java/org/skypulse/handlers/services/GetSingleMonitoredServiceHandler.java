@@ -4,6 +4,7 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.StatusCodes;
 import org.skypulse.config.database.DatabaseUtils;
+import org.skypulse.utils.ETagUtil;
 import org.skypulse.utils.HttpRequestUtil;
 import org.skypulse.utils.ResponseUtil;
 import org.slf4j.Logger;
@@ -14,6 +15,26 @@ import java.util.*;
 public class GetSingleMonitoredServiceHandler implements HttpHandler {
     private static final Logger logger = LoggerFactory.getLogger(GetSingleMonitoredServiceHandler.class);
 
+    // One cheap row covering every table the detail view joins
+    private static final String VERSION_SQL = """
+            SELECT ms.date_modified,
+                   (SELECT MAX(ul.checked_at) FROM uptime_logs ul
+                     WHERE ul.monitored_service_id = ms.monitored_service_id),
+                   (SELECT COUNT(*) || ':' || COALESCE(MAX(GREATEST(s.last_checked, s.date_modified))::text, '')
+                      FROM ssl_logs s WHERE s.monitored_service_id = ms.monitored_service_id),
+                   (SELECT COUNT(*) || ':' || COALESCE(MAX(i.date_modified)::text, '')
+                      FROM incidents i WHERE i.monitored_service_id = ms.monitored_service_id),
+                   (SELECT COUNT(*) || ':' || COALESCE(MAX(mw.date_modified)::text, '')
+                      FROM maintenance_windows mw WHERE mw.monitored_service_id = ms.monitored_service_id),
+                   (SELECT COUNT(*) || ':' || COALESCE(MAX(cg.date_modified)::text, '')
+                      FROM monitored_services_contact_groups m
+                      JOIN contact_groups cg ON cg.contact_group_id = m.contact_group_id
+                     WHERE m.monitored_service_id = ms.monitored_service_id),
+                   (SELECT u.date_modified FROM users u WHERE u.user_id = ms.created_by)
+            FROM monitored_services ms
+            WHERE ms.uuid = ?
+            """;
+
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         if (HttpRequestUtil.dispatchIfIoThread(exchange, this)) return;
@@ -35,6 +56,8 @@ public class GetSingleMonitoredServiceHandler implements HttpHandler {
             return;
         }
 
+        if (ETagUtil.notModified(exchange, ETagUtil.weak(exchange, VERSION_SQL, List.of(uuidValue)))) return;
+
         String sql = """
             SELECT
                 ms.monitored_service_id, ms.uuid, ms.monitored_service_name, ms.monitored_service_url,
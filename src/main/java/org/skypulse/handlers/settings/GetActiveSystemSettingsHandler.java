@@ -6,6 +6,7 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.StatusCodes;
 import org.skypulse.config.database.DatabaseManager;
 import org.skypulse.rest.auth.RequireRoles;
+import org.skypulse.utils.ETagUtil;
 import org.skypulse.utils.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -21,8 +23,19 @@ import java.util.Objects;
 public class GetActiveSystemSettingsHandler implements HttpHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GetActiveSystemSettingsHandler.class);
+
+    private static final String VERSION_SQL = """
+            SELECT system_setting_id, version, date_modified FROM system_settings WHERE is_active = TRUE LIMIT 1
+            """;
+
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
+        try {
+            if (ETagUtil.notModified(exchange, ETagUtil.weak(exchange, VERSION_SQL, List.of()))) return;
+        } catch (Exception e) {
+            logger.warn("Settings version check failed, serving full response: {}", e.getMessage());
+        }
+
         try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()){
             String sql = """
                     SELECT * FROM system_settings WHERE is_active = TRUE LIMIT 1
@@ -44,6 +57,7 @@ public class GetActiveSystemSettingsHandler implements HttpHandler {
                     response.put("notification_check_interval", rs.getInt("notification_check_interval"));
                     response.put("notification_retry_count", rs.getInt("notification_retry_count"));
                     response.put("notification_cooldown_minutes", rs.getInt("notification_cooldown_minutes"));
+                    response.put("uptime_log_retention_days", rs.getInt("uptime_log_retention_days"));
                     response.put("version", rs.getInt("version"));
                     response.put("is_active", rs.getBoolean("is_active"));
 
@@ -70,6 +70,7 @@ public class SystemSettingsHandlers implements HttpHandler {
                         beforeDataMap.put("notification_check_interval", rs.getInt("notification_check_interval"));
                         beforeDataMap.put("notification_retry_count", rs.getInt("notification_retry_count"));
                         beforeDataMap.put("notification_cooldown_minutes", rs.getInt("notification_cooldown_minutes"));
+                        beforeDataMap.put("uptime_log_retention_days", rs.getInt("uptime_log_retention_days"));
                         beforeDataMap.put("version", rs.getInt("version"));
                     }
                 }
@@ -96,9 +97,10 @@ public class SystemSettingsHandlers implements HttpHandler {
                         sse_push_interval,
                         ssl_check_interval, ssl_alert_thresholds, ssl_retry_count, ssl_retry_delay,
                         notification_check_interval, notification_retry_count, notification_cooldown_minutes,
+                        uptime_log_retention_days,
                         version, is_active, changed_by
                     )
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE, ?)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, 90), ?, TRUE, ?)
                     RETURNING system_setting_id
             """)) {
 
@@ -117,6 +119,8 @@ public class SystemSettingsHandlers implements HttpHandler {
                 ps.setObject(i++, body.get("notification_retry_count"));
                 ps.setObject(i++, body.get("notification_cooldown_minutes"));
 
+                ps.setObject(i++, body.get("uptime_log_retention_days"));
+
                 ps.setInt(i++, nextVersion);
 
                 UserContext userContext = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
@@ -182,6 +186,7 @@ public class SystemSettingsHandlers implements HttpHandler {
                     currentDataMap.put("notification_check_interval", rs.getInt("notification_check_interval"));
                     currentDataMap.put("notification_retry_count", rs.getInt("notification_retry_count"));
                     currentDataMap.put("notification_cooldown_minutes", rs.getInt("notification_cooldown_minutes"));
+                    currentDataMap.put("uptime_log_retention_days", rs.getInt("uptime_log_retention_days"));
                     currentDataMap.put("version", rs.getInt("version"));
 
                 }
@@ -218,6 +223,7 @@ public class SystemSettingsHandlers implements HttpHandler {
                         previousDataMap.put("notification_check_interval", rs.getInt("notification_check_interval"));
                         previousDataMap.put("notification_retry_count", rs.getInt("notification_retry_count"));
                         previousDataMap.put("notification_cooldown_minutes", rs.getInt("notification_cooldown_minutes"));
+                        previousDataMap.put("uptime_log_retention_days", rs.getInt("uptime_log_retention_days"));
                         previousDataMap.put("version", rs.getInt("version"));
 
                     }
@@ -17,4 +17,9 @@ public class MultiChannelSender implements NotificationSender {
         if (sender == null) return false;
         return sender.send(channelCode, destination, subject, message, inlineImages);
     }
+
+    @Override
+    public void close() {
+        senders.values().forEach(NotificationSender::close);
+    }
 }
@@ -0,0 +1,167 @@
+package org.skypulse.notifications;
+
+import org.skypulse.config.database.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * In-memory copy of the reference data the notification send path reads for every event:
+ * notification_channels, notification_templates and the service -> contact group -> contact mapping.
+ * - Snapshots are immutable and carry a version computed in SQL from the three sources
+ * - The version is checked at most every CHECK_INTERVAL_MILLIS; only a changed version reloads
+ */
+public final class NotificationReferenceData {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationReferenceData.class);
+
+    private static final long CHECK_INTERVAL_MILLIS = 5_000;
+
+    private static final NotificationReferenceData SHARED = new NotificationReferenceData();
+
+    public record Template(String storageMode, String subjectTemplate, String bodyTemplate,
+                           String bodyTemplateKey, Timestamp dateModified) {}
+
+    public record Snapshot(String version,
+                           Map<String, Long> channelIds,
+                           Map<String, Template> templates,
+                           Map<Long, List<RecipientResolver.Recipient>> serviceRecipients) {
+
+        /** Id of an enabled channel, or null. */
+        public Long channelId(String code) {
+            return channelIds.get(code);
+        }
+
+        public Template template(String eventType) {
+            return templates.get(eventType);
+        }
+
+        public List<RecipientResolver.Recipient> recipients(long serviceId) {
+            return serviceRecipients.getOrDefault(serviceId, List.of());
+        }
+    }
+
+    private static final String CONTACTS_FROM = """
+            FROM monitored_services_contact_groups mscg
+            JOIN contact_group_members cgm ON cgm.contact_group_id = mscg.contact_group_id
+            JOIN user_contacts uc ON uc.user_id = cgm.user_id
+            """;
+
+    private static final String VERSION_SQL = """
+            SELECT
+              (SELECT md5(COALESCE(string_agg(
+                   notification_channel_id || ':' || notification_channel_code || ':' || COALESCE(is_enabled, FALSE),
+                   ',' ORDER BY notification_channel_id), ''))
+               FROM notification_channels)
+              || '|' ||
+              (SELECT COUNT(*) || ':' || COALESCE(MAX(date_modified)::text, '') FROM notification_templates)
+              || '|' ||
+              (SELECT md5(COALESCE(string_agg(
+                   mscg.monitored_service_id || ':' || uc.user_contacts_id || ':' || uc.user_id || ':'
+                       || COALESCE(uc.type, '') || ':' || uc.value || ':' || COALESCE(uc.is_primary, FALSE),
+                   ',' ORDER BY mscg.monitored_service_id, uc.user_contacts_id), ''))
+            """ + CONTACTS_FROM + ")";
+
+    private volatile Snapshot snapshot;
+    private volatile long checkedAt;
+
+    private NotificationReferenceData() {}
+
+    public static NotificationReferenceData shared() {
+        return SHARED;
+    }
+
+    /**
+     * Current snapshot. Within CHECK_INTERVAL_MILLIS of the last check it is returned without touching
+     * the database; otherwise the version is compared and the data reloaded if it changed.
+     */
+    public Snapshot current() throws SQLException {
+        Snapshot s = snapshot;
+        if (s != null && System.currentTimeMillis() - checkedAt < CHECK_INTERVAL_MILLIS) return s;
+
+        synchronized (this) {
+            s = snapshot;
+            if (s != null && System.currentTimeMillis() - checkedAt < CHECK_INTERVAL_MILLIS) return s;
+
+            try (Connection conn = JdbcUtils.getConnection()) {
+                String version = version(conn);
+                if (s == null || !s.version().equals(version)) {
+                    s = load(conn, version);
+                    snapshot = s;
+                    logger.info("Loaded notification reference data: {} channels, {} templates, {} services with contacts",
+                            s.channelIds().size(), s.templates().size(), s.serviceRecipients().size());
+                }
+                checkedAt = System.currentTimeMillis();
+            }
+            return s;
+        }
+    }
+
+    private static String version(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(VERSION_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static Snapshot load(Connection conn, String version) throws SQLException {
+        Map<String, Long> channels = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT notification_channel_id, notification_channel_code
+                FROM notification_channels
+                WHERE is_enabled = TRUE
+                ORDER BY notification_channel_id
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                channels.putIfAbsent(rs.getString("notification_channel_code"), rs.getLong("notification_channel_id"));
+            }
+        }
+
+        Map<String, Template> templates = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT event_type, storage_mode, subject_template, body_template, body_template_key, date_modified
+                FROM notification_templates
+                ORDER BY notification_template_id
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String eventType = rs.getString("event_type");
+                if (eventType == null) continue;
+                templates.putIfAbsent(eventType, new Template(
+                        rs.getString("storage_mode"),
+                        rs.getString("subject_template"),
+                        rs.getString("body_template"),
+                        rs.getString("body_template_key"),
+                        rs.getTimestamp("date_modified")
+                ));
+            }
+        }
+
+        Map<Long, List<RecipientResolver.Recipient>> recipients = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT mscg.monitored_service_id, uc.user_id, UPPER(uc.type) AS type, uc.value\n"
+                        + CONTACTS_FROM
+                        + "ORDER BY mscg.monitored_service_id, uc.is_primary DESC");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                recipients.computeIfAbsent(rs.getLong("monitored_service_id"), k -> new ArrayList<>())
+                        .add(new RecipientResolver.Recipient(
+                                rs.getLong("user_id"),
+                                rs.getString("type"),
+                                rs.getString("value")
+                        ));
+            }
+        }
+        recipients.replaceAll((k, v) -> List.copyOf(v));
+
+        return new Snapshot(version, Map.copyOf(channels), Map.copyOf(templates), Map.copyOf(recipients));
+    }
+}
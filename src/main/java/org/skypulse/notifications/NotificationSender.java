@@ -12,4 +12,9 @@ public interface NotificationSender {
      */
     boolean send(String channelCode, String destination, String subject, String message, Map<String, String> inlineImages);
 
+    /**
+     * Release connections held by the sender. Sends still in progress may complete.
+     */
+    default void close() {}
+
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.skypulse.notifications;
 
+import org.skypulse.config.database.JdbcUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,18 +21,25 @@ public class RecipientResolver {
     public record Recipient(long userId, String type, String value) {}
 
 
-    public static List<Recipient> resolveRecipients(Connection conn,
+    /**
+     * Service events resolve from the cached contact mapping; user events read users and only
+     * then take a connection.
+     */
+    public static List<Recipient> resolveRecipients(NotificationReferenceData.Snapshot ref,
                                                     String eventType,
                                                     long serviceId,
                                                     Object payloadUserId) throws SQLException {
 
         return switch (eventType) {
 
-            case "USER_CREATED", "RESET_PASSWORD" ->
-                    resolveUserCreatedOrReset(conn, payloadUserId);
+            case "USER_CREATED", "RESET_PASSWORD" -> {
+                try (Connection conn = JdbcUtils.getConnection()) {
+                    yield resolveUserCreatedOrReset(conn, payloadUserId);
+                }
+            }
 
             default ->
-                    resolveServiceNotificationContacts(conn, serviceId);
+                    ref.recipients(serviceId);
         };
     }
 
@@ -65,38 +73,4 @@ public class RecipientResolver {
             }
         }
     }
-
-    // All service notifications
-    private static List<Recipient> resolveServiceNotificationContacts(Connection conn, long serviceId)
-            throws SQLException {
-
-        List<Recipient> list = new ArrayList<>();
-
-        String sql = """
-            SELECT uc.user_id, UPPER(uc.type) AS type, uc.value
-            FROM monitored_services_contact_groups mscg
-            JOIN contact_group_members cgm ON cgm.contact_group_id = mscg.contact_group_id
-            JOIN user_contacts uc ON uc.user_id = cgm.user_id
-            WHERE mscg.monitored_service_id = ?
-            ORDER BY uc.is_primary DESC
-        """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, serviceId);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(
-                            new Recipient(
-                                    rs.getLong("user_id"),
-                                    rs.getString("type"),
-                                    rs.getString("value")
-                            )
-                    );
-                }
-            }
-        }
-
-        return list;
-    }
 }
@@ -0,0 +1,172 @@
+package org.skypulse.notifications;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compiled Mustache templates for notifications.
+ * - Looked up by (event_type, channel); compiled objects are shared by template hash, so the same
+ *   text is parsed once and rendering is only a tree walk
+ * - An entry is reused while notification_templates.date_modified is unchanged and nothing under the
+ *   filesystem template root changed (WatchService); otherwise it is reloaded through TemplateLoader
+ */
+public final class TemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    private static final int MAX_COMPILED = 512;
+
+    private static final TemplateCache SHARED = new TemplateCache();
+
+    public record Compiled(Mustache subject, Mustache body) {
+
+        public String renderSubject(Map<String, Object> scope) {
+            return render(subject, scope);
+        }
+
+        public String renderBody(Map<String, Object> scope) {
+            return render(body, scope);
+        }
+
+        private static String render(Mustache m, Map<String, Object> scope) {
+            StringWriter w = new StringWriter();
+            m.execute(w, scope);
+            return w.toString();
+        }
+    }
+
+    private record Entry(Timestamp dateModified, long generation, Compiled compiled) {}
+
+    private final MustacheFactory factory = new DefaultMustacheFactory();
+    private final TemplateLoader loader = new TemplateLoader();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Mustache> byHash = new ConcurrentHashMap<>();
+    // Bumped by the watcher; entries from an older generation are reloaded
+    private final AtomicLong generation = new AtomicLong();
+
+    private TemplateCache() {
+        Path root = loader.filesystemRoot();
+        if (root != null) watch(root);
+    }
+
+    public static TemplateCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Compiled templates for a notification_templates row, or null when the subject or body cannot be found.
+     * A blank subject falls back to the template stored under the body key, as before.
+     */
+    public Compiled get(String eventType, String channel, Timestamp dateModified, String storageMode,
+                        String subjectTpl, String bodyTpl, String bodyTemplateKey) {
+        String key = eventType + "|" + channel;
+        long gen = generation.get();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation() == gen && Objects.equals(entry.dateModified(), dateModified)) {
+            return entry.compiled();
+        }
+
+        String body = loader.load(storageMode, bodyTpl, bodyTemplateKey, channel);
+        String subject = subjectTpl == null || subjectTpl.isBlank()
+                ? loader.load("hybrid", null, bodyTemplateKey, channel)
+                : subjectTpl;
+        if (subject == null || body == null) {
+            entries.remove(key);
+            return null;
+        }
+
+        Compiled compiled = new Compiled(compile(subject), compile(body));
+        entries.put(key, new Entry(dateModified, gen, compiled));
+        logger.debug("Compiled templates for event={} channel={}", eventType, channel);
+        return compiled;
+    }
+
+    private Mustache compile(String text) {
+        String hash = sha256(text);
+        Mustache m = byHash.get(hash);
+        if (m != null) return m;
+
+        // Edited templates leave old versions behind; start over rather than grow without bound
+        if (byHash.size() >= MAX_COMPILED) byHash.clear();
+        return byHash.computeIfAbsent(hash, h -> factory.compile(new StringReader(text), h));
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void watch(Path root) {
+        WatchService watcher;
+        try {
+            watcher = root.getFileSystem().newWatchService();
+            register(watcher, root);
+        } catch (IOException e) {
+            logger.warn("Template watcher not started for {}, filesystem edits need a restart: {}", root, e.getMessage());
+            return;
+        }
+
+        Thread t = new Thread(() -> {
+            while (true) {
+                WatchKey key;
+                try {
+                    key = watcher.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        Path created = dir.resolve((Path) event.context());
+                        if (Files.isDirectory(created)) {
+                            try {
+                                register(watcher, created);
+                            } catch (IOException e) {
+                                logger.warn("Cannot watch template directory {}: {}", created, e.getMessage());
+                            }
+                        }
+                    }
+                }
+                key.reset();
+                generation.incrementAndGet();
+                logger.debug("Template change under {}, cached templates will be reloaded", dir);
+            }
+        }, "template-watch");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void register(WatchService watcher, Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watcher,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 /**
@@ -35,6 +36,11 @@ public class TemplateLoader {
         }
     }
 
+    /** Root of filesystem templates, or null when they are disabled. */
+    public Path filesystemRoot() {
+        return filesystemEnabled ? Paths.get(externalBasePath) : null;
+    }
+
     public String load(String storageMode, String dbTemplate, String key, String channel) {
         if (key == null || key.isBlank()) {
             logger.error("[TemplateLoader] Template key missing for channel={}", channel);
@@ -11,42 +11,53 @@ import org.slf4j.LoggerFactory;
 import java.util.Map;
 import java.util.Properties;
 
+/**
+ * Sends email through a pool of long-lived SMTP connections (SmtpTransportPool).
+ * SMTP protocol tracing is off unless the email config sets debug.
+ */
 public class EmailSender implements NotificationSender {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailSender.class);
 
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
     private final XmlConfiguration.Notification.Email config;
     private final Session session;
+    private final SmtpTransportPool pool;
 
     public EmailSender(XmlConfiguration.Notification.Email config) {
         this.config = config;
 
         Properties props = getProperties(config);
 
-        this.session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(config.username, config.password);
-            }
-        });
+        this.session = Session.getInstance(props);
+        this.session.setDebug(config.debug);
 
-        this.session.setDebug(true);
+        boolean auth = config.username != null && !config.username.isBlank();
+        this.pool = new SmtpTransportPool(
+                session,
+                config.smtpHost,
+                config.smtpPort,
+                auth ? config.username : null,
+                auth ? config.password : null,
+                config.poolSize > 0 ? config.poolSize : DEFAULT_POOL_SIZE,
+                config.idleTimeoutMs > 0 ? config.idleTimeoutMs : DEFAULT_IDLE_TIMEOUT_MS,
+                config.connectionTimeout
+        );
         logger.info("[---------- EmailSender initialized for host {}:{} ----------]", config.smtpHost, config.smtpPort);
     }
 
     @NotNull
     private static Properties getProperties(XmlConfiguration.Notification.Email config) {
         Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.auth", String.valueOf(config.username != null && !config.username.isBlank()));
         props.put("mail.smtp.starttls.enable", String.valueOf(config.useTLS));
         props.put("mail.smtp.host", config.smtpHost);
         props.put("mail.smtp.port", String.valueOf(config.smtpPort));
         props.put("mail.smtp.connectiontimeout", String.valueOf(config.connectionTimeout));
         props.put("mail.smtp.timeout", String.valueOf(config.connectionTimeout));
         props.put("mail.smtp.writetimeout", String.valueOf(config.connectionTimeout));
-
-        // Enable debug for SMTP session
-        props.put("mail.debug", "true");
         return props;
     }
 
@@ -63,7 +74,7 @@ public class EmailSender implements NotificationSender {
             Multipart multipart = EmailHelper.buildHtmlWithInlineImages(message, inlineImages);
             msg.setContent(multipart);
 
-            Transport.send(msg);
+            pool.send(msg);
             logger.info("Email sent successfully to {}", destination);
             return true;
         } catch (MessagingException e) {
@@ -74,4 +85,9 @@ public class EmailSender implements NotificationSender {
             return false;
         }
     }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.skypulse.notifications.email;
+
+import com.sun.mail.smtp.SMTPMessage;
+import com.sun.mail.smtp.SMTPTransport;
+import jakarta.mail.*;
+import jakarta.mail.internet.InternetAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SMTP transport that pipelines the envelope (RFC 2920) when the server advertises PIPELINING.
+ * - MAIL FROM and every RCPT TO go out back to back, so a message costs one round trip before DATA
+ *   instead of one per recipient
+ * - Responses are still read one per command, in order, by SMTPTransport, so its accounting of
+ *   valid and invalid recipients is unchanged
+ * - Before an RSET (a rejected MAIL FROM or an unexpected reply) the responses still queued for the
+ *   pipelined RCPTs are drained, keeping the connection in step for reuse
+ * - Falls back to the plain exchange for DSN requests and group addresses
+ */
+final class PipeliningSmtpTransport extends SMTPTransport {
+
+    private List<String> pendingRcpts;
+    private int pipelined;
+
+    PipeliningSmtpTransport(Session session, String host, int port) {
+        super(session, new URLName("smtp", host, port, null, null, null));
+    }
+
+    @Override
+    public synchronized void sendMessage(Message message, Address[] addresses) throws MessagingException {
+        pendingRcpts = canPipeline(message, addresses) ? rcptCommands(addresses) : null;
+        pipelined = 0;
+        try {
+            super.sendMessage(message, addresses);
+        } finally {
+            pendingRcpts = null;
+            pipelined = 0;
+        }
+    }
+
+    @Override
+    protected void sendCommand(String cmd) throws MessagingException {
+        if (pipelined > 0) {
+            if (cmd.startsWith("RCPT TO:")) {
+                // Already on the wire; SMTPTransport reads its response next
+                pipelined--;
+                return;
+            }
+            while (pipelined > 0) {
+                pipelined--;
+                readServerResponse();
+            }
+        }
+
+        super.sendCommand(cmd);
+
+        if (pendingRcpts != null && cmd.startsWith("MAIL FROM:")) {
+            for (String rcpt : pendingRcpts) {
+                super.sendCommand(rcpt);
+            }
+            pipelined = pendingRcpts.size();
+            pendingRcpts = null;
+        }
+    }
+
+    private boolean canPipeline(Message message, Address[] addresses) {
+        if (addresses == null || addresses.length == 0 || !supportsExtension("PIPELINING")) return false;
+        if (session.getProperty("mail.smtp.dsn.notify") != null) return false;
+        if (message instanceof SMTPMessage smtp && smtp.getNotifyOptions() != 0) return false;
+        for (Address address : addresses) {
+            if (!(address instanceof InternetAddress ia) || ia.isGroup()) return false;
+        }
+        return true;
+    }
+
+    // Same form SMTPTransport.rcptTo() writes, so each pipelined command matches the one it skips
+    private static List<String> rcptCommands(Address[] addresses) {
+        List<String> commands = new ArrayList<>(addresses.length);
+        for (Address address : addresses) {
+            String addr = ((InternetAddress) address).getAddress();
+            if (!addr.startsWith("<") && !addr.endsWith(">")) addr = "<" + addr + ">";
+            commands.add("RCPT TO:" + addr);
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,192 @@
+package org.skypulse.notifications.email;
+
+import jakarta.mail.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * Bounded pool of connected, authenticated SMTP transports.
+ * - A send borrows a transport, so one TCP+TLS+AUTH handshake serves many messages
+ * - A transport idle longer than VALIDATE_AFTER_MILLIS is checked (NOOP) before reuse
+ * - A reused transport that fails is dropped and the message retried once on a fresh connection
+ * - Connections are replaced after MAX_MESSAGES_PER_CONNECTION and evicted after idleTimeoutMillis
+ * - Envelopes are pipelined where the server allows it (PipeliningSmtpTransport)
+ * - Talks only to the Session it is given, so it runs against any SMTP server, local stand-ins included
+ */
+final class SmtpTransportPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private static final long VALIDATE_AFTER_MILLIS = 30_000;
+    private static final int MAX_MESSAGES_PER_CONNECTION = 100;
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "smtp-pool-evict");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final class Pooled {
+        final Transport transport;
+        long lastUsed = System.currentTimeMillis();
+        int messages;
+
+        Pooled(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore permits;
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+    private final ScheduledFuture<?> eviction;
+    private volatile boolean closed;
+
+    SmtpTransportPool(Session session, String host, int port, String username, String password,
+                      int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this.session = session;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        long period = Math.max(idleTimeoutMillis / 2, 1_000);
+        this.eviction = EVICTOR.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send msg on a pooled connection. Blocks up to borrowTimeoutMillis when every connection is busy.
+     */
+    void send(Message msg) throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection available within " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for an SMTP connection", e);
+        }
+
+        try {
+            msg.saveChanges();
+            Address[] recipients = msg.getAllRecipients();
+
+            Pooled pooled = borrow();
+            boolean fresh = pooled.messages == 0;
+            try {
+                deliver(pooled, msg, recipients);
+            } catch (SendFailedException e) {
+                // Rejected recipients; the session itself is fine
+                giveBack(pooled);
+                throw e;
+            } catch (MessagingException e) {
+                discard(pooled);
+                if (fresh) throw e;
+                logger.debug("Pooled SMTP connection failed, retrying on a new one: {}", e.getMessage());
+                pooled = connect();
+                try {
+                    deliver(pooled, msg, recipients);
+                } catch (MessagingException retryFailure) {
+                    discard(pooled);
+                    throw retryFailure;
+                }
+            }
+            giveBack(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void deliver(Pooled pooled, Message msg, Address[] recipients) throws MessagingException {
+        pooled.transport.sendMessage(msg, recipients);
+        pooled.messages++;
+        pooled.lastUsed = System.currentTimeMillis();
+    }
+
+    private Pooled borrow() throws MessagingException {
+        while (true) {
+            Pooled pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) return connect();
+
+            if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER_MILLIS
+                    || pooled.transport.isConnected()) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+    }
+
+    private Pooled connect() throws MessagingException {
+        Transport transport = new PipeliningSmtpTransport(session, host, port);
+        transport.connect(host, port, username, password);
+        logger.debug("Opened SMTP connection to {}:{}", host, port);
+        return new Pooled(transport);
+    }
+
+    private void giveBack(Pooled pooled) {
+        if (closed || pooled.messages >= MAX_MESSAGES_PER_CONNECTION) {
+            discard(pooled);
+            return;
+        }
+        synchronized (idle) {
+            // Most recently used first, so the tail ages out when traffic drops
+            idle.offerFirst(pooled);
+        }
+    }
+
+    private static void discard(Pooled pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        while (true) {
+            Pooled pooled;
+            synchronized (idle) {
+                Pooled last = idle.peekLast();
+                if (last == null || last.lastUsed > cutoff) return;
+                pooled = idle.pollLast();
+            }
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Close idle connections. Sends still running finish normally; their connections are closed
+     * instead of pooled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        eviction.cancel(false);
+        while (true) {
+            Pooled pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) return;
+            discard(pooled);
+        }
+    }
+}
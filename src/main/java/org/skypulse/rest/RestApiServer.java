@@ -3,19 +3,34 @@ package org.skypulse.rest;
 import io.undertow.Handlers;
 import io.undertow.Undertow;
 import io.undertow.UndertowOptions;
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.PathHandler;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
 import org.skypulse.config.utils.XmlConfiguration;
 import org.skypulse.rest.base.CORSHandler;
 import org.skypulse.utils.security.KeyProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
 import java.time.Instant;
 
 public class RestApiServer {
     private static final Logger logger = LoggerFactory.getLogger(RestApiServer.class);
     private static final Instant START_TIME = Instant.now();
+    private static final int DEFAULT_COMPRESSION_MIN_BYTES = 1024;
 
     public static void startUndertow(XmlConfiguration cfg) {
         if (cfg == null || cfg.server == null) {
@@ -38,17 +53,26 @@ public class RestApiServer {
 
             String[] allowedOrigins = KeyProvider.getAllowedFrontendOrigins();
 
+            int minBytes = cfg.server.compressionMinBytes > 0 ? cfg.server.compressionMinBytes : DEFAULT_COMPRESSION_MIN_BYTES;
+            Predicate compressible = compressible(minBytes);
+            HttpHandler root = new EncodingHandler(
+                    new CORSHandler(pathHandler, allowedOrigins),
+                    new ContentEncodingRepository()
+                            .addEncodingHandler("gzip", new GzipEncodingProvider(), 100, compressible)
+                            .addEncodingHandler("deflate", new DeflateEncodingProvider(), 50, compressible)
+            );
 
-            Undertow server = Undertow.builder()
+            Undertow.Builder builder = Undertow.builder()
                     .setServerOption(UndertowOptions.DECODE_URL, true)
                     .setServerOption(UndertowOptions.URL_CHARSET, StandardCharsets.UTF_8.name())
-//                    .setServerOption(UndertowOptions.ENABLE_HTTP2, true)
 //                    .setServerOption(UndertowOptions.ALLOW_ENCODED_SLASH, true)
                     .setIoThreads(cfg.server.ioThreads)
                     .setWorkerThreads(cfg.server.workerThreads)
                     .addHttpListener(cfg.server.port, cfg.server.host)
-                    .setHandler(new CORSHandler(pathHandler, allowedOrigins))
-                    .build();
+                    .setHandler(root);
+            tuneListeners(builder, cfg.server);
+
+            Undertow server = builder.build();
 
 
             server.start();
@@ -64,6 +88,8 @@ public class RestApiServer {
                                         Host   : http://{}:{}{}
                    \s""",
                     cfg.server.host, cfg.server.port, cfg.server.basePath);
+            logger.info("HTTP/2: {}, HTTPS port: {}", cfg.server.http2 ? "enabled" : "disabled",
+                    cfg.server.httpsPort > 0 ? cfg.server.httpsPort : "disabled");
 
         } catch (Exception e){
             logger.error("Error starting server: {}", e.getMessage(), e);
@@ -71,4 +97,64 @@ public class RestApiServer {
         }
     }
 
+    /**
+     * HTTP/2, TLS, buffers and timeouts from the server section.
+     * - http2 enables h2c (Upgrade / prior knowledge) on HTTP and ALPN h2 on HTTPS, so a dashboard's
+     *   SSE streams and REST calls share one connection instead of hitting per-origin limits
+     * - SSE connections send keep-alives, so an idle timeout does not cut quiet streams
+     */
+    private static void tuneListeners(Undertow.Builder builder, XmlConfiguration.Server server) throws Exception {
+        if (server.http2) {
+            builder.setServerOption(UndertowOptions.ENABLE_HTTP2, true);
+            if (server.http2MaxConcurrentStreams > 0) {
+                builder.setServerOption(UndertowOptions.HTTP2_SETTINGS_MAX_CONCURRENT_STREAMS, server.http2MaxConcurrentStreams);
+            }
+        }
+        if (server.httpsPort > 0) {
+            builder.addHttpsListener(server.httpsPort, server.host, sslContext(server));
+        }
+        if (server.bufferSize > 0) builder.setBufferSize(server.bufferSize);
+        if (server.directBuffers != null) builder.setDirectBuffers(server.directBuffers);
+        if (server.maxEntitySize > 0) builder.setServerOption(UndertowOptions.MAX_ENTITY_SIZE, server.maxEntitySize);
+        if (server.idleTimeoutMs > 0) builder.setServerOption(UndertowOptions.IDLE_TIMEOUT, server.idleTimeoutMs);
+        if (server.noRequestTimeoutMs > 0) builder.setServerOption(UndertowOptions.NO_REQUEST_TIMEOUT, server.noRequestTimeoutMs);
+    }
+
+    private static SSLContext sslContext(XmlConfiguration.Server server) throws Exception {
+        if (server.keyStorePath == null || server.keyStorePath.isBlank()) {
+            throw new IllegalArgumentException("httpsPort is set but keyStorePath is missing");
+        }
+        char[] password = server.keyStorePassword != null ? server.keyStorePassword.toCharArray() : new char[0];
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(Path.of(server.keyStorePath))) {
+            keyStore.load(in, password);
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, password);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(kmf.getKeyManagers(), null, null);
+        return context;
+    }
+
+    /**
+     * Compress bodies of at least minBytes, and streamed bodies (no Content-Length) regardless.
+     * SSE must reach clients frame by frame, PDFs are already compressed, and responses that set their
+     * own Content-Encoding are left alone.
+     */
+    private static Predicate compressible(int minBytes) {
+        return exchange -> {
+            int status = exchange.getStatusCode();
+            if (status == StatusCodes.NO_CONTENT || status == StatusCodes.NOT_MODIFIED) return false;
+            // Already encoded by the handler (log exports gzip themselves)
+            if (exchange.getResponseHeaders().contains(Headers.CONTENT_ENCODING)) return false;
+
+            String type = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+            if (type == null || type.startsWith("text/event-stream") || type.startsWith("application/pdf")) return false;
+
+            String length = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+            return length == null || Long.parseLong(length) >= minBytes;
+        };
+    }
 }
@@ -8,11 +8,17 @@ import org.skypulse.handlers.TaskController;
 import org.skypulse.handlers.auth.*;
 import org.skypulse.handlers.company.ListCompanies;
 import org.skypulse.handlers.contacts.*;
+import org.skypulse.handlers.logs.ExportSslLogsHandler;
+import org.skypulse.handlers.logs.ExportUptimeLogsHandler;
 import org.skypulse.handlers.logs.GetAuditLogsHandler;
 import org.skypulse.handlers.logs.GetSSLLogsHandler;
 import org.skypulse.handlers.logs.GetUptimeLogsHandler;
+import org.skypulse.handlers.logs.GetUptimeRollupsHandler;
+import org.skypulse.handlers.reports.DownloadReportJobHandler;
 import org.skypulse.handlers.reports.GenerateUptimePdfReports;
 import org.skypulse.handlers.reports.GenerateSslPdfReports;
+import org.skypulse.handlers.reports.GetReportJobHandler;
+import org.skypulse.handlers.reports.SubmitReportJobHandler;
 import org.skypulse.handlers.services.GetMonitoredServices;
 import org.skypulse.handlers.services.GetSingleMonitoredServiceHandler;
 import org.skypulse.handlers.services.MonitoredServiceHandler;
@@ -93,7 +99,10 @@ public class Routes {
                 .get("", secure(new GetMonitoredServices(), accessToken))
                 .get("/service", secure(new GetSingleMonitoredServiceHandler(), accessToken))
                 .get("/logs/uptime", secure(new GetUptimeLogsHandler(), accessToken))
+                .get("/logs/uptime/rollups", secure(new GetUptimeRollupsHandler(), accessToken))
+                .get("/logs/uptime/export", secure(new ExportUptimeLogsHandler(), accessToken))
                 .get("/logs/ssl", secure(new GetSSLLogsHandler(), accessToken))
+                .get("/logs/ssl/export", secure(new ExportSslLogsHandler(), accessToken))
                 .get("/logs/audit", secure(new GetAuditLogsHandler(), accessToken))
                 .post("/create", secure(new MonitoredServiceHandler(), accessToken))
                 .put("/update", secure(new UpdateMonitoredServiceHandler(), accessToken))
@@ -119,6 +128,9 @@ public class Routes {
         return Handlers.routing()
                 .get("/pdf/uptime", secure(new GenerateUptimePdfReports(), accessToken))
                 .get("/pdf/ssl", secure(new GenerateSslPdfReports(), accessToken))
+                .post("/jobs", secure(new SubmitReportJobHandler(), accessToken))
+                .get("/jobs/{job_id}", secure(new GetReportJobHandler(), accessToken))
+                .get("/jobs/{job_id}/download", secure(new DownloadReportJobHandler(), accessToken))
                 .setInvalidMethodHandler(new Dispatcher(new InvalidMethod()))
                 .setFallbackHandler(new Dispatcher(new FallBack()));
     }
@@ -131,7 +143,7 @@ public class Routes {
 
         return Handlers.routing()
                 .get("/health", open(sseHealthCheckHandler.getHandler()))
-                .get("/service-status", open(sseServiceStatusHandler.getHandler()))
+                .get("/service-status", secure(sseServiceStatusHandler, accessToken))
                 .setInvalidMethodHandler(new Dispatcher(new InvalidMethod()))
                 .setFallbackHandler(new Dispatcher(new FallBack()));
     }
@@ -10,6 +10,7 @@ import org.skypulse.utils.ResponseUtil;
 import org.skypulse.utils.security.CookieUtil;
 import org.skypulse.utils.security.JwtUtil;
 import org.skypulse.utils.security.TokenUtil;
+import org.skypulse.utils.security.VerifiedClaims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,7 +22,8 @@ import java.util.UUID;
 /**
  * AuthMiddleware:
  * - Reads access & refresh cookies
- * - Validates session row in DB
+ * - Serves valid access tokens of recently validated sessions from SessionCache
+ * - Otherwise validates session row in DB
  * - Auto-refreshes access token using refresh token if possible
  * - Attaches UserContext to the exchange
  *
@@ -53,18 +55,32 @@ public class AuthMiddleware implements HttpHandler {
             return;
         }
 
-        try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()) {
+        // Verify the access token once; null when missing, invalid or expired
+        VerifiedClaims claims = JwtUtil.verify(accessToken);
+        UUID accessJti = null;
+        if (claims != null) {
+            try {
+                if (claims.jwtId() != null && !claims.jwtId().isBlank()) accessJti = UUID.fromString(claims.jwtId());
+            } catch (IllegalArgumentException ex) {
+                log.debug("Failed to read jti from access token: {}", ex.getMessage());
+            }
+        }
 
-            // Read JWT ID from access token
-            UUID accessJti = null;
-            if (accessToken != null && !accessToken.isBlank()) {
-                try {
-                    String jti = JwtUtil.getJwtId(accessToken);
-                    if (jti != null && !jti.isBlank()) accessJti = UUID.fromString(jti);
-                } catch (Exception ex) {
-                    log.debug("Failed to read jti from access token: {}", ex.getMessage());
-                }
+        // Valid access token of a recently validated session: no database round-trip
+        UserContext cached = SessionCache.shared().get(accessJti);
+        if (cached != null) {
+            exchange.putAttachment(UserContext.ATTACHMENT_KEY, cached);
+            try {
+                next.handleRequest(exchange);
+            } catch (Exception e) {
+                log.error("AuthMiddleware failed: {}", e.getMessage(), e);
+                ResponseUtil.sendError(exchange, StatusCodes.INTERNAL_SERVER_ERROR,
+                        "Internal Server Error");
             }
+            return;
+        }
+
+        try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection()) {
 
             String refreshHash = refreshToken != null ? TokenUtil.hashToken(refreshToken) : null;
 
@@ -82,6 +98,7 @@ public class AuthMiddleware implements HttpHandler {
             boolean matchedViaRefresh = false;
             Long userId = null;
             UUID jwtId = null;
+            Instant sessionExpiresAt = null;
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setObject(1, accessJti, Types.OTHER);
@@ -97,6 +114,7 @@ public class AuthMiddleware implements HttpHandler {
                                 && expiresAt != null && expiresAt.toInstant().isAfter(Instant.now())) {
 
                             sessionValid = true;
+                            sessionExpiresAt = expiresAt.toInstant();
                             userId = rs.getLong("user_id");
                             Object jwtObj = rs.getObject("jwt_id");
                             if (jwtObj != null) jwtId = (UUID) jwtObj;
@@ -147,7 +165,7 @@ public class AuthMiddleware implements HttpHandler {
                 }
             }
 
-            boolean accessExpired = (accessToken == null) || JwtUtil.isExpired(accessToken);
+            boolean accessExpired = claims == null;
 
             // Refresh access token if expired and refresh token matches
             if (accessExpired && refreshToken != null && matchedViaRefresh) {
@@ -168,6 +186,11 @@ public class AuthMiddleware implements HttpHandler {
 
             exchange.putAttachment(UserContext.ATTACHMENT_KEY, ctx);
 
+            // Only a live access token of this very session may be served from the cache later
+            if (!accessExpired && jwtId.equals(accessJti) && userUuid != null) {
+                SessionCache.shared().put(jwtId, ctx, sessionExpiresAt);
+            }
+
             next.handleRequest(exchange);
 
         } catch (Exception e) {
@@ -0,0 +1,75 @@
+package org.skypulse.rest.auth;
+
+import org.skypulse.config.database.dtos.UserContext;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * SessionCache keeps validated sessions by access-token jti so AuthMiddleware can skip the database.
+ * - Bounded to MAX_ENTRIES, least recently used evicted first
+ * - An entry lives for at most TTL_SECONDS and never past the session's expires_at
+ * - Logout calls invalidate(); password reset revokes the user's sessions and calls invalidateUser()
+ * - Anything else that changes a user's role or active state must call invalidateUser() too;
+ *   changes made directly in the database are picked up within TTL_SECONDS
+ */
+public final class SessionCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long TTL_SECONDS = 60;
+
+    private static final SessionCache SHARED = new SessionCache();
+
+    private record Entry(UserContext user, Instant cachedUntil) {}
+
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private SessionCache() {}
+
+    public static SessionCache shared() {
+        return SHARED;
+    }
+
+    /** Cached user for jti, or null when absent or expired. */
+    public synchronized UserContext get(UUID jti) {
+        if (jti == null) return null;
+        Entry entry = entries.get(jti);
+        if (entry == null) return null;
+        if (!entry.cachedUntil().isAfter(Instant.now())) {
+            entries.remove(jti);
+            return null;
+        }
+        return entry.user();
+    }
+
+    public synchronized void put(UUID jti, UserContext user, Instant sessionExpiresAt) {
+        if (jti == null || user == null || sessionExpiresAt == null) return;
+        Instant ttl = Instant.now().plusSeconds(TTL_SECONDS);
+        entries.put(jti, new Entry(user, sessionExpiresAt.isBefore(ttl) ? sessionExpiresAt : ttl));
+    }
+
+    public synchronized void invalidate(UUID jti) {
+        if (jti != null) entries.remove(jti);
+    }
+
+    /** Drop every cached session of a user, e.g. after a password reset, role change or deactivation. */
+    public synchronized void invalidateUser(long userId) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            UserContext user = it.next().user();
+            if (user.userId() != null && user.userId() == userId) it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -4,9 +4,11 @@ import org.skypulse.config.database.dtos.SystemSettings;
 import org.skypulse.config.utils.XmlConfiguration;
 import org.skypulse.notifications.MultiChannelSender;
 import org.skypulse.notifications.email.EmailSender;
+import org.skypulse.tasks.probe.ServiceStateTable;
 import org.skypulse.tasks.tasks.NotificationProcessorTask;
 import org.skypulse.tasks.tasks.SslExpiryMonitorTask;
 import org.skypulse.tasks.tasks.UptimeCheckTask;
+import org.skypulse.tasks.tasks.UptimeLogPartitionTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,7 @@ public class ApplicationTasks {
                 try {
                     SystemSettings.SystemDefaults defaultSettings = SystemSettings.loadSystemDefaults();
                     List<SystemSettings.ServiceConfig> services = SystemSettings.loadActiveServices();
+                    ServiceStateTable.shared().sync(services);
 
                     // 1. Register UPTIME CHECK TASKS for each monitored service
                     for (SystemSettings.ServiceConfig service : services) {
@@ -57,6 +60,9 @@ public class ApplicationTasks {
                     // 3. Register SSL MONITOR TASK
                     appScheduler.register(new SslExpiryMonitorTask(defaultSettings));
 
+                    // 4. Register UPTIME LOG PARTITION MAINTENANCE
+                    appScheduler.register(new UptimeLogPartitionTask(defaultSettings));
+
                 } catch (Exception e) {
                     logger.error("Failed to register DB-backed tasks", e);
                 }
@@ -0,0 +1,255 @@
+package org.skypulse.tasks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HashedTimingWheel is a hashed wheel timer driven by a single ticker thread.
+ * - Timeouts are hashed into buckets by their deadline tick, so insert and cancel are O(1)
+ * - Each tick only touches one bucket; the number of scheduled timeouts does not matter
+ * - Expired work is handed to the dispatcher executor, never run on the ticker thread
+ * - Precision is one tick, which is plenty for checks measured in seconds and minutes
+ */
+public final class HashedTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor dispatcher;
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startTime;
+    private final Thread ticker;
+
+    private volatile boolean running = true;
+    private long tick; // only touched by the ticker thread
+
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, Executor dispatcher) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be positive");
+        if (ticksPerWheel <= 0) throw new IllegalArgumentException("ticksPerWheel must be positive");
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = createWheel(ticksPerWheel);
+        this.mask = wheel.length - 1;
+        this.dispatcher = dispatcher;
+        this.startTime = System.nanoTime();
+
+        this.ticker = new Thread(this::run, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedule task to run once after the given delay. The returned Timeout can be cancelled in O(1).
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new RejectedExecutionException("Timing wheel " + ticker.getName() + " is stopped");
+        }
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /** Number of timeouts scheduled and not yet expired or cancelled. */
+    public int pending() {
+        return pending.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop the ticker thread. Timeouts that have not fired are discarded.
+     */
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        additions.clear();
+        cancellations.clear();
+        pending.set(0);
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) break;
+
+            try {
+                processCancellations();
+                transferAdditions();
+                wheel[(int) (tick & mask)].expire(deadline);
+            } catch (Throwable t) {
+                logger.error("Timing wheel {} tick failed: {}", ticker.getName(), t.getMessage(), t);
+            }
+            tick++;
+        }
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - current + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) return current;
+
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!running) return -1;
+            }
+        }
+    }
+
+    private void transferAdditions() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = additions.poll();
+            if (timeout == null) return;
+            if (timeout.isCancelled()) continue;
+
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // Never place a timeout behind the current tick; late ones fire on this tick
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private static Bucket[] createWheel(int ticksPerWheel) {
+        int size = 1;
+        while (size < ticksPerWheel) size <<= 1;
+
+        Bucket[] buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) buckets[i] = new Bucket();
+        return buckets;
+    }
+
+    public final class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // Bucket linkage, only touched by the ticker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /** Cancel the timeout. Returns false if it already fired or was cancelled. */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancellations.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) return;
+            pending.decrementAndGet();
+            try {
+                dispatcher.execute(task);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Timing wheel dispatcher rejected a task: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Doubly linked list of timeouts sharing one wheel slot. */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        // Placed in the wrong slot; should never happen
+                        logger.warn("Timing wheel timeout deadline {} is after tick deadline {}", timeout.deadline, deadline);
+                        timeout.expire();
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) return;
+
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            if (timeout == head) head = timeout.next;
+            if (timeout == tail) tail = timeout.prev;
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
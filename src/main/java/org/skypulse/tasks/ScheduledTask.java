@@ -7,4 +7,33 @@ public interface ScheduledTask {
     long intervalSeconds();
 
     void execute();
+
+    /**
+     * When true the first run is delayed by a stable per-task offset within the interval
+     * instead of firing immediately, so large sets of similar tasks do not start in lockstep.
+     */
+    default boolean spreadFirstRun() {
+        return false;
+    }
+
+    /**
+     * Stable identity used by TaskScheduler.reload() to match a freshly loaded task with the running one.
+     */
+    default String key() {
+        return name();
+    }
+
+    /**
+     * Everything that affects how the task runs. Two tasks with the same key and an equal fingerprint
+     * are interchangeable, so reload keeps the running one and its timer untouched.
+     */
+    default Object configFingerprint() {
+        return intervalSeconds();
+    }
+
+    /**
+     * Release resources owned by the task. Called once the scheduler drops it (cancelled, replaced or
+     * discarded on reload as unchanged).
+     */
+    default void close() {}
 }
@@ -8,23 +8,38 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TaskScheduler manages periodic execution of ScheduledTasks.
  * Supports task registration, start, logging, shutdown, and reload.
  * Stores a taskLoader for dynamic reloads without requiring a full app restart.
+ * - Timers live on a HashedTimingWheel: O(1) schedule and cancel regardless of task count
+ * - Due tasks run on a fixed worker pool; each run schedules the next one, so runs never overlap
+ * - Tasks that opt into spreadFirstRun() start at a stable offset within their interval
+ * - reload() diffs the freshly loaded tasks against the running ones by key() and configFingerprint()
  */
 public class TaskScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskScheduler.class);
 
-    private ScheduledThreadPoolExecutor executor;
+    private static final long TICK_MILLIS = 100;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private HashedTimingWheel wheel;
+    private ExecutorService workers;
     private final int poolSize;
-    private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
     private final List<ScheduledTask> tasks = new ArrayList<>();
 
     private Runnable taskLoader;
@@ -47,19 +62,95 @@ public class TaskScheduler {
     }
 
     public synchronized void start() {
+        int spread = 0;
         for (ScheduledTask task : tasks) {
-            logger.info("Scheduling task {} every {}s", task.name(), task.intervalSeconds());
-            ScheduledFuture<?> future = executor.scheduleAtFixedRate(
-                    () -> runTaskWithLogging(task),
-                    0,
-                    task.intervalSeconds(),
-                    TimeUnit.SECONDS
-            );
-            futures.add(future);
+            if (scheduleNew(task, null)) spread++;
+        }
+        logger.info("[------- TaskScheduler started {} tasks ({} with spread first run) -------]", tasks.size(), spread);
+        tasks.clear();
+    }
+
+    /**
+     * Create and schedule the entry for task, replacing any running entry with the same key.
+     * When previous is given and the interval did not change, the task keeps the previous phase.
+     * Returns true if the first run was spread over the interval.
+     */
+    private boolean scheduleNew(ScheduledTask task, Entry previous) {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(task.intervalSeconds(), 1));
+        long now = System.currentTimeMillis();
+
+        long firstRunAt;
+        if (previous != null && previous.intervalMillis == intervalMillis) {
+            firstRunAt = Math.max(previous.nextRunAt, now);
+        } else {
+            firstRunAt = now + (task.spreadFirstRun() ? firstRunOffset(task.key(), intervalMillis) : 0);
+        }
+
+        Entry replaced = entries.get(task.key());
+        if (replaced != null) drop(replaced);
+
+        logger.debug("Scheduling task {} every {}s (first run in {}ms)", task.name(), task.intervalSeconds(), firstRunAt - now);
+        Entry entry = new Entry(task, intervalMillis, firstRunAt);
+        entries.put(task.key(), entry);
+        schedule(entry, firstRunAt - now);
+        return firstRunAt > now;
+    }
+
+    private void drop(Entry entry) {
+        entry.cancel();
+        closeQuietly(entry.task);
+    }
+
+    private void closeQuietly(ScheduledTask task) {
+        try {
+            task.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close task {}: {}", task.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deterministic offset in [0, interval): the same task lands on the same slot after every
+     * restart or reload, and a fleet of tasks is spread evenly instead of firing at once.
+     */
+    static long firstRunOffset(String taskKey, long intervalMillis) {
+        long h = taskKey.hashCode();
+        // murmur3 fmix64 so that similar names do not cluster
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return Math.floorMod(h, intervalMillis);
+    }
+
+    private void schedule(Entry entry, long delayMillis) {
+        try {
+            entry.timeout = wheel.schedule(() -> runEntry(entry), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule task {}: {}", entry.task.name(), e.getMessage());
         }
     }
 
-    private void runTaskWithLogging(ScheduledTask task) {
+    private void runEntry(Entry entry) {
+        if (entry.cancelled) return;
+
+        long nextRunAt = entry.nextRunAt + entry.intervalMillis;
+        long now = System.currentTimeMillis();
+        // Fixed rate, but a late run does not trigger a burst of catch-up runs
+        if (nextRunAt <= now) nextRunAt = now + entry.intervalMillis;
+        entry.nextRunAt = nextRunAt;
+
+        try {
+            runTaskWithLogging(entry.task, nextRunAt);
+        } finally {
+            if (!entry.cancelled) {
+                schedule(entry, entry.nextRunAt - System.currentTimeMillis());
+            }
+        }
+    }
+
+    private void runTaskWithLogging(ScheduledTask task, long nextRunAt) {
         long start = System.currentTimeMillis();
         String errorMessage = null;
         try {
@@ -68,12 +159,11 @@ public class TaskScheduler {
             errorMessage = e.getMessage();
             logger.error("Error in scheduled task {}: {}", task.name(), errorMessage, e);
         } finally {
-            long end = System.currentTimeMillis();
-            logBackgroundTask(task.name(), start, end, errorMessage);
+            logBackgroundTask(task.name(), start, nextRunAt, errorMessage);
         }
     }
 
-    private void logBackgroundTask(String taskName, long startMillis, long endMillis, String errorMessage) {
+    private void logBackgroundTask(String taskName, long startMillis, long nextRunMillis, String errorMessage) {
         try (Connection conn = JdbcUtils.getConnection();
              PreparedStatement ps = conn.prepareStatement(
                      "INSERT INTO background_tasks(task_name, task_type, status, last_run_at, next_run_at, error_message, date_created, date_modified) " +
@@ -87,7 +177,7 @@ public class TaskScheduler {
             ps.setString(2, "SCHEDULED");
             ps.setString(3, errorMessage == null ? "SUCCESS" : "FAILED");
             ps.setTimestamp(4, new Timestamp(startMillis));
-            ps.setTimestamp(5, new Timestamp(startMillis + TimeUnit.SECONDS.toMillis(30)));
+            ps.setTimestamp(5, new Timestamp(nextRunMillis));
             ps.setString(6, errorMessage);
             ps.executeUpdate();
         } catch (Exception e) {
@@ -97,11 +187,12 @@ public class TaskScheduler {
 
     public synchronized void shutdown() {
         logger.info("[--------- Shutting down TaskScheduler ---------]");
-        for (ScheduledFuture<?> future : futures) future.cancel(true);
-        executor.shutdownNow();
-        futures.clear();
+        for (Entry entry : entries.values()) drop(entry);
+        entries.clear();
+        wheel.stop();
+        workers.shutdownNow();
         try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
                 logger.warn("TaskScheduler did not terminate gracefully");
             } else {
                 logger.info("[--------- TaskScheduler stopped ---------]");
@@ -113,24 +204,97 @@ public class TaskScheduler {
     }
 
     private void createNewExecutor() {
-        this.executor = new ScheduledThreadPoolExecutor(poolSize);
-        this.executor.setRemoveOnCancelPolicy(true);
+        this.workers = Executors.newFixedThreadPool(poolSize, namedThreads("task-worker"));
+        this.wheel = new HashedTimingWheel("task-wheel", TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, workers);
     }
 
-    public synchronized void reload() {
-        logger.info("[--------- Reloading TaskScheduler ---------]");
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 
-        shutdown();
-        createNewExecutor();
+    public record ReloadResult(int added, int updated, int removed, int unchanged) {}
 
-        tasks.clear();
-        futures.clear();
+    /**
+     * Re-run the task loader and apply only the difference to the running schedule.
+     * - New keys are scheduled, keys no longer loaded are cancelled
+     * - A key whose configFingerprint() changed is replaced; same interval keeps its phase
+     * - Unchanged tasks keep their timer and any in-flight run; the fresh duplicate is closed
+     */
+    public synchronized ReloadResult reload() {
+        logger.info("[--------- Reloading TaskScheduler ---------]");
 
+        tasks.clear();
         if (taskLoader != null) {
             taskLoader.run();
         }
 
-        start();
-        logger.info("[--------- TaskScheduler reload complete ---------]");
+        Map<String, ScheduledTask> loaded = new LinkedHashMap<>();
+        for (ScheduledTask task : tasks) {
+            ScheduledTask duplicate = loaded.put(task.key(), task);
+            if (duplicate != null) closeQuietly(duplicate);
+        }
+        tasks.clear();
+
+        // The loader swallows DB errors and registers nothing; keep the running schedule in that case
+        if (loaded.isEmpty() && !entries.isEmpty()) {
+            logger.warn("Task loader returned no tasks, keeping the {} running tasks", entries.size());
+            return new ReloadResult(0, 0, 0, entries.size());
+        }
+
+        int added = 0, updated = 0, removed = 0, unchanged = 0;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> current = it.next();
+            if (!loaded.containsKey(current.getKey())) {
+                drop(current.getValue());
+                it.remove();
+                removed++;
+            }
+        }
+
+        for (ScheduledTask task : loaded.values()) {
+            Entry current = entries.get(task.key());
+            if (current == null) {
+                scheduleNew(task, null);
+                added++;
+            } else if (Objects.equals(current.task.configFingerprint(), task.configFingerprint())) {
+                closeQuietly(task);
+                unchanged++;
+            } else {
+                scheduleNew(task, current);
+                updated++;
+            }
+        }
+
+        ReloadResult result = new ReloadResult(added, updated, removed, unchanged);
+        logger.info("[--------- TaskScheduler reload complete: {} ---------]", result);
+        return result;
+    }
+
+    /** Scheduling state of one registered task. */
+    private static final class Entry {
+        private final ScheduledTask task;
+        private final long intervalMillis;
+        private volatile long nextRunAt;
+        private volatile boolean cancelled;
+        private volatile HashedTimingWheel.Timeout timeout;
+
+        private Entry(ScheduledTask task, long intervalMillis, long firstRunAt) {
+            this.task = task;
+            this.intervalMillis = intervalMillis;
+            this.nextRunAt = firstRunAt;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            HashedTimingWheel.Timeout t = timeout;
+            if (t != null) t.cancel();
+        }
     }
 }
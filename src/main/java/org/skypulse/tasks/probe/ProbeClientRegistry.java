@@ -0,0 +1,70 @@
+package org.skypulse.tasks.probe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ProbeClientRegistry hands out shared HttpClient instances to uptime checks.
+ * One client exists per ClientProfile (protocol version, redirect policy, timeout profile),
+ * so every check with the same profile shares one connection pool, selector thread and
+ * TLS session cache. Keep-alive connections and TLS sessions are reused across check rounds.
+ */
+public final class ProbeClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeClientRegistry.class);
+
+    // Idle keep-alive connections must outlive a check interval to be reused by the next round.
+    // Read once by the JDK when the first HttpClient is created, so it is set before any client exists.
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    private static final String KEEP_ALIVE_SECONDS = "600";
+
+    private static final ConcurrentHashMap<ClientProfile, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    static {
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, KEEP_ALIVE_SECONDS);
+        }
+    }
+
+    private ProbeClientRegistry() {}
+
+    /**
+     * connectTimeout is applied to the shared client, requestTimeout to every request sent through it.
+     */
+    public record TimeoutProfile(Duration connectTimeout, Duration requestTimeout) {
+        public static final TimeoutProfile STANDARD = new TimeoutProfile(Duration.ofSeconds(5), Duration.ofSeconds(8));
+    }
+
+    public record ClientProfile(HttpClient.Version version, HttpClient.Redirect redirect, TimeoutProfile timeouts) {
+        public static final ClientProfile DEFAULT = new ClientProfile(
+                HttpClient.Version.HTTP_1_1,
+                HttpClient.Redirect.NORMAL,
+                TimeoutProfile.STANDARD
+        );
+    }
+
+    public static HttpClient client(ClientProfile profile) {
+        return CLIENTS.computeIfAbsent(profile, ProbeClientRegistry::build);
+    }
+
+    public static int size() {
+        return CLIENTS.size();
+    }
+
+    private static HttpClient build(ClientProfile profile) {
+        logger.info("Creating shared probe HttpClient: version={} redirect={} connectTimeout={} requestTimeout={}",
+                profile.version(), profile.redirect(),
+                profile.timeouts().connectTimeout(), profile.timeouts().requestTimeout());
+
+        return HttpClient.newBuilder()
+                .version(profile.version())
+                .followRedirects(profile.redirect())
+                .connectTimeout(profile.timeouts().connectTimeout())
+                .executor(UptimeProbeEngine.shared().callbackExecutor())
+                .build();
+    }
+}
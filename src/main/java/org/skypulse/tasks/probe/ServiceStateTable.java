@@ -0,0 +1,179 @@
+package org.skypulse.tasks.probe;
+
+import org.skypulse.config.database.dtos.SystemSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * ServiceStateTable is the authoritative in-process uptime state per monitored service.
+ * - Open-addressing long -> slot map backed by primitive arrays (no boxing, no per-entry objects)
+ * - Seeded from monitored_services when tasks are loaded; the DB copy is written behind by UptimeResultWriter
+ * - apply() updates status and failure count and decides SERVICE_DOWN / SERVICE_RECOVERED in one atomic step
+ */
+public final class ServiceStateTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceStateTable.class);
+
+    private static final byte UNKNOWN = 0;
+    private static final byte UP = 1;
+    private static final byte DOWN = 2;
+
+    private static final long EMPTY = 0L; // identity keys start at 1
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final ServiceStateTable INSTANCE = new ServiceStateTable(INITIAL_CAPACITY);
+
+    private long[] keys;
+    private byte[] statuses;
+    private int[] failures;
+    private int size;
+
+    public record Transition(String oldStatus, String newStatus, int consecutiveFailures, boolean emitEvent) {}
+
+    private ServiceStateTable(int capacity) {
+        allocate(capacity);
+    }
+
+    public static ServiceStateTable shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Align the table with the active services: services already tracked keep their live state,
+     * new ones take the persisted state, services no longer active are dropped.
+     */
+    public synchronized void sync(List<SystemSettings.ServiceConfig> services) {
+        int added = 0;
+        ServiceStateTable next = new ServiceStateTable(capacityFor(services.size()));
+        for (SystemSettings.ServiceConfig service : services) {
+            long id = service.serviceId();
+            int slot = find(id);
+            if (slot >= 0) {
+                next.put(id, statuses[slot], failures[slot]);
+            } else {
+                next.put(id, encode(service.lastUptimeStatus()), service.consecutiveFailures());
+                added++;
+            }
+        }
+
+        int removed = size - (next.size - added);
+        this.keys = next.keys;
+        this.statuses = next.statuses;
+        this.failures = next.failures;
+        this.size = next.size;
+
+        logger.info("[------- ServiceStateTable synced: {} services ({} added, {} removed) -------]", size, added, removed);
+    }
+
+    /**
+     * Record a probe outcome and return the transition it causes.
+     * An event is due on recovery (UP after anything else) or when consecutive failures reach retryCount.
+     */
+    public synchronized Transition apply(long serviceId, String status, int retryCount) {
+        int slot = find(serviceId);
+        if (slot < 0) {
+            slot = put(serviceId, UNKNOWN, 0);
+        }
+
+        byte old = statuses[slot];
+        byte now = encode(status);
+        int failureCount = now == UP ? 0 : failures[slot] + 1;
+
+        statuses[slot] = now;
+        failures[slot] = failureCount;
+
+        boolean emitEvent = now == UP
+                ? old != UP
+                : now == DOWN && failureCount == retryCount;
+
+        return new Transition(decode(old), status, failureCount, emitEvent);
+    }
+
+    public synchronized String status(long serviceId) {
+        int slot = find(serviceId);
+        return slot < 0 ? decode(UNKNOWN) : decode(statuses[slot]);
+    }
+
+    public synchronized int consecutiveFailures(long serviceId) {
+        int slot = find(serviceId);
+        return slot < 0 ? 0 : failures[slot];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int put(long key, byte status, int failureCount) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) size++;
+
+        keys[slot] = key;
+        statuses[slot] = status;
+        failures[slot] = failureCount;
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        byte[] oldStatuses = statuses;
+        int[] oldFailures = failures;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldStatuses[i], oldFailures[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        statuses = new byte[capacity];
+        failures = new int[capacity];
+        size = 0;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < entries * 2) capacity <<= 1;
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static byte encode(String status) {
+        if ("UP".equals(status)) return UP;
+        if ("DOWN".equals(status)) return DOWN;
+        return UNKNOWN;
+    }
+
+    private static String decode(byte status) {
+        return switch (status) {
+            case UP -> "UP";
+            case DOWN -> "DOWN";
+            default -> "UNKNOWN";
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package org.skypulse.tasks.probe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UptimeProbeEngine runs HTTP uptime probes without holding a thread per check.
+ * - Requests go out through HttpClient.sendAsync, nothing blocks on the network
+ * - Retries are scheduled as delayed continuations instead of Thread.sleep
+ * - HTTP completions run on a fixed callback pool, result handling on a separate fixed pool
+ * - A permit limit caps the number of probes in flight per node
+ */
+public final class UptimeProbeEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(UptimeProbeEngine.class);
+
+    private static final int CALLBACK_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int RESULT_THREADS = 4;
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    private static final UptimeProbeEngine INSTANCE = new UptimeProbeEngine(CALLBACK_THREADS, RESULT_THREADS, MAX_IN_FLIGHT);
+
+    private final ExecutorService callbackExecutor;
+    private final ExecutorService resultExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public record ProbeRequest(
+            String url,
+            int expectedStatusCode,
+            int retryCount,
+            int retryDelaySeconds,
+            Duration timeout
+    ) {}
+
+    public record ProbeResult(
+            String status,
+            int httpCode,
+            long responseTimeMs,
+            String errorMessage,
+            int attempts
+    ) {
+        public boolean isUp() {
+            return "UP".equals(status);
+        }
+    }
+
+    private UptimeProbeEngine(int callbackThreads, int resultThreads, int maxInFlight) {
+        this.callbackExecutor = Executors.newFixedThreadPool(callbackThreads, namedThreads("probe-callback"));
+        this.resultExecutor = Executors.newFixedThreadPool(resultThreads, namedThreads("probe-result"));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("probe-retry"));
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+
+        logger.info("[------- UptimeProbeEngine initialized: callbackThreads={} resultThreads={} maxInFlight={} -------]",
+                callbackThreads, resultThreads, maxInFlight);
+    }
+
+    public static UptimeProbeEngine shared() {
+        return INSTANCE;
+    }
+
+    /** Executor handed to HttpClient instances so their completion work stays on a bounded pool. */
+    public Executor callbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /** Executor for work done with a finished probe result (persistence, events). */
+    public Executor resultExecutor() {
+        return resultExecutor;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Probe the target, retrying up to retryCount times with retryDelaySeconds between attempts.
+     * The returned future completes with the outcome of the last attempt; it never blocks the caller.
+     */
+    public CompletableFuture<ProbeResult> probe(HttpClient client, ProbeRequest request) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Probe capacity exhausted (" + maxInFlight + " in flight)"));
+        }
+        inFlight.incrementAndGet();
+
+        CompletableFuture<ProbeResult> result = new CompletableFuture<>();
+        result.whenComplete((r, e) -> {
+            inFlight.decrementAndGet();
+            permits.release();
+        });
+
+        attempt(client, request, 0, result);
+        return result;
+    }
+
+    private void attempt(HttpClient client, ProbeRequest request, int attempt, CompletableFuture<ProbeResult> result) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = HttpRequest.newBuilder()
+                    .uri(URI.create(request.url()))
+                    .timeout(request.timeout())
+                    .GET()
+                    .build();
+        } catch (Exception e) {
+            result.complete(new ProbeResult("DOWN", -1, -1, e.getMessage(), attempt + 1));
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .whenCompleteAsync((response, error) -> {
+                    long responseTime = System.currentTimeMillis() - start;
+                    int httpCode = -1;
+                    String errorMessage;
+
+                    if (error == null) {
+                        httpCode = response.statusCode();
+
+                        // If success -> complete immediately
+                        if (httpCode == request.expectedStatusCode() || (httpCode >= 200 && httpCode < 400)) {
+                            result.complete(new ProbeResult("UP", httpCode, responseTime, null, attempt + 1));
+                            return;
+                        }
+                        errorMessage = "Unexpected HTTP code: " + httpCode;
+                    } else {
+                        Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                                ? error.getCause()
+                                : error;
+                        errorMessage = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                    }
+
+                    if (attempt < request.retryCount()) {
+                        scheduleRetry(client, request, attempt + 1, result,
+                                new ProbeResult("DOWN", httpCode, responseTime, errorMessage, attempt + 1));
+                    } else {
+                        result.complete(new ProbeResult("DOWN", httpCode, responseTime, errorMessage, attempt + 1));
+                    }
+                }, callbackExecutor);
+    }
+
+    private void scheduleRetry(HttpClient client, ProbeRequest request, int nextAttempt,
+                               CompletableFuture<ProbeResult> result, ProbeResult lastResult) {
+        try {
+            retryScheduler.schedule(
+                    () -> attempt(client, request, nextAttempt, result),
+                    Math.max(request.retryDelaySeconds(), 0),
+                    TimeUnit.SECONDS
+            );
+        } catch (RejectedExecutionException e) {
+            // Engine is shutting down: report what we have instead of leaving the probe hanging
+            result.complete(lastResult);
+        }
+    }
+
+    public void shutdown() {
+        logger.info("[--------- Shutting down UptimeProbeEngine ({} probes in flight) ---------]", inFlight.get());
+        retryScheduler.shutdownNow();
+        callbackExecutor.shutdown();
+        resultExecutor.shutdown();
+        try {
+            if (!resultExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                resultExecutor.shutdownNow();
+                logger.warn("UptimeProbeEngine result pool did not terminate gracefully");
+            }
+            callbackExecutor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("UptimeProbeEngine shutdown interrupted.");
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,396 @@
+package org.skypulse.tasks.probe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.skypulse.config.database.JdbcUtils;
+import org.skypulse.tasks.rollup.UptimeRollups;
+import org.skypulse.tasks.sse.ServiceStatusBus;
+import org.skypulse.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UptimeResultWriter persists uptime probe results write-behind.
+ * - Results go into a bounded queue; submit() waits briefly when it is full and then rejects the result,
+ *   except transitions (emitEvent), which ServiceStateTable has already applied: they go to an overflow list
+ * - A failed flush is retried with backoff; if it keeps failing, the transitions in it are carried into the
+ *   following batches (up to MAX_CARRY_ROUNDS) so their outbox events are not lost
+ * - One writer thread drains the queue and flushes when the batch is full or the flush interval has passed
+ * - A flush is one transaction: a batched UPDATE ... FROM (VALUES ...) on monitored_services,
+ *   a multi-row INSERT into uptime_logs, the uptime_rollups upsert and a multi-row INSERT of transition events
+ * - Status, failure count and transitions are decided upstream by ServiceStateTable; this class only persists them
+ * - After commit the latest state per service is published to ServiceStatusBus for SSE
+ */
+public final class UptimeResultWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UptimeResultWriter.class);
+    private static final ObjectMapper mapper = JsonUtil.mapper();
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    // Carried, queued and overflow results together; keeps every statement well under the 65535 bind limit
+    private static final int MAX_BATCH = 500;
+    private static final long FLUSH_INTERVAL_MS = 1_000;
+    private static final long OFFER_TIMEOUT_MS = 2_000;
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MS = 1_000;
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+    private static final int MAX_CARRY_ROUNDS = 10;
+
+    private static final UptimeResultWriter INSTANCE = new UptimeResultWriter();
+
+    private final BlockingQueue<UptimeResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Transitions that did not fit in the queue; rare, so unbounded
+    private final Queue<UptimeResult> overflow = new ConcurrentLinkedQueue<>();
+    // Transitions from batches that could not be written, with the number of batches they have been through
+    private final Map<UptimeResult, Integer> carried = new LinkedHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    public record UptimeResult(
+            long serviceId,
+            UUID serviceUuid,
+            String serviceName,
+            String serviceUrl,
+            String status,
+            int httpCode,
+            long responseTimeMs,
+            String errorMessage,
+            int retryCount,
+            int retryDelay,
+            int intervalSeconds,
+            OffsetDateTime checkedAt,
+            String oldStatus,
+            int consecutiveFailures,
+            boolean emitEvent
+    ) {}
+
+    private UptimeResultWriter() {
+        this.writer = new Thread(this::run, "uptime-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        logger.info("[------- UptimeResultWriter initialized: capacity={} maxBatch={} flushInterval={}ms -------]",
+                QUEUE_CAPACITY, MAX_BATCH, FLUSH_INTERVAL_MS);
+    }
+
+    public static UptimeResultWriter shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a result for writing. Blocks up to OFFER_TIMEOUT_MS while the queue is full,
+     * then drops the result and returns false so the caller can back off.
+     * Transitions are never dropped while running: the in-memory state has already moved on,
+     * so losing one would lose its SERVICE_DOWN / SERVICE_RECOVERED event for good.
+     */
+    public boolean submit(UptimeResult result) {
+        if (running) {
+            try {
+                if (queue.offer(result, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (result.emitEvent()) {
+                overflow.add(result);
+                return true;
+            }
+        }
+        long total = rejected.incrementAndGet();
+        logger.warn("Uptime result queue full ({} queued), dropped result for service {} ({} rejected so far)",
+                queue.size(), result.serviceId(), total);
+        return false;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    public long written() {
+        return written.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public long failedBatches() {
+        return failedBatches.get();
+    }
+
+    /**
+     * Stop accepting results and flush what is queued. Call before the connection pool closes.
+     */
+    public void shutdown() {
+        logger.info("[--------- Shutting down UptimeResultWriter ({} queued) ---------]", queue.size());
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("UptimeResultWriter did not drain in time, {} results lost", queue.size());
+        }
+    }
+
+    private void run() {
+        List<UptimeResult> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty() || !overflow.isEmpty()) {
+            try {
+                // Carried transitions are the oldest results, so they go first and newer state wins
+                batch.addAll(carried.keySet());
+                if (batch.isEmpty() && overflow.isEmpty()) {
+                    UptimeResult first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+
+                long deadline = System.currentTimeMillis() + FLUSH_INTERVAL_MS;
+                while (batch.size() < MAX_BATCH) {
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= MAX_BATCH || wait <= 0 || !running) break;
+
+                    UptimeResult next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                // Overflow arrived while the queue was full, after everything in it; what does not fit waits a round
+                for (UptimeResult r; batch.size() < MAX_BATCH && (r = overflow.poll()) != null; ) batch.add(r);
+
+                flushWithRetry(batch);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } finally {
+                batch.clear();
+            }
+        }
+        if (!carried.isEmpty()) {
+            logger.error("UptimeResultWriter stopped with {} unwritten transition events", carried.size());
+        }
+    }
+
+    /**
+     * Flush with exponential backoff. When every attempt fails the plain results are dropped
+     * and the transitions carried into the next batch.
+     */
+    private void flushWithRetry(List<UptimeResult> batch) throws InterruptedException {
+        long backoff = RETRY_BACKOFF_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(batch);
+                carried.clear();
+                return;
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                if (attempt >= MAX_FLUSH_ATTEMPTS || !running) {
+                    carry(batch, e);
+                    return;
+                }
+                logger.warn("Failed to write {} uptime results (attempt {}/{}), retrying in {} ms: {}",
+                        batch.size(), attempt, MAX_FLUSH_ATTEMPTS, backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void carry(List<UptimeResult> batch, Exception e) {
+        int dropped = 0;
+        for (UptimeResult r : batch) {
+            if (!r.emitEvent()) {
+                dropped++;
+                continue;
+            }
+            int rounds = carried.getOrDefault(r, 0) + 1;
+            if (rounds > MAX_CARRY_ROUNDS) {
+                carried.remove(r);
+                logger.error("Dropping transition event for service {} ({} -> {}) after {} failed batches",
+                        r.serviceId(), r.oldStatus(), r.status(), MAX_CARRY_ROUNDS);
+                dropped++;
+            } else {
+                carried.put(r, rounds);
+            }
+        }
+        logger.error("Failed to write {} uptime results: {}; {} dropped, {} transitions kept for the next batch",
+                batch.size(), e.getMessage(), dropped, carried.size(), e);
+    }
+
+    private void flush(List<UptimeResult> batch) throws Exception {
+        if (batch.isEmpty()) return;
+
+        try (Connection conn = JdbcUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Collection<UptimeResult> latest = latestPerService(batch);
+                Set<Long> existing = updateServices(conn, latest);
+
+                List<UptimeResult> persisted = new ArrayList<>(batch.size());
+                List<UptimeResult> events = new ArrayList<>();
+                for (UptimeResult r : batch) {
+                    if (!existing.contains(r.serviceId())) continue; // service deleted since the check was scheduled
+                    persisted.add(r);
+                    if (r.emitEvent()) events.add(r);
+                }
+
+                insertLogs(conn, persisted);
+                UptimeRollups.apply(conn, persisted);
+                insertEvents(conn, events);
+                conn.commit();
+
+                publish(latest, existing);
+
+                written.addAndGet(persisted.size());
+                logger.debug("Flushed {} uptime results ({} events)", persisted.size(), events.size());
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Feed committed state to the SSE bus.
+     */
+    private static void publish(Collection<UptimeResult> latest, Set<Long> existing) {
+        ServiceStatusBus bus = ServiceStatusBus.shared();
+        for (UptimeResult r : latest) {
+            if (!existing.contains(r.serviceId())) continue;
+            bus.uptimeChanged(r.serviceId(), r.serviceUuid() != null ? r.serviceUuid().toString() : null,
+                    r.serviceName(), r.status(), r.responseTimeMs());
+        }
+    }
+
+    /**
+     * UPDATE ... FROM needs at most one VALUES row per target row; the last result carries the current state.
+     */
+    private static Collection<UptimeResult> latestPerService(List<UptimeResult> batch) {
+        Map<Long, UptimeResult> latest = new LinkedHashMap<>();
+        for (UptimeResult r : batch) {
+            latest.put(r.serviceId(), r);
+        }
+        return latest.values();
+    }
+
+    /**
+     * Writes the state decided in memory to monitored_services and returns the ids that still exist.
+     */
+    private static Set<Long> updateServices(Connection conn, Collection<UptimeResult> results) throws Exception {
+        String sql = """
+        UPDATE monitored_services ms
+        SET last_uptime_status = v.status,
+            consecutive_failures = v.consecutive_failures,
+            last_checked = v.checked_at,
+            date_modified = NOW()
+        FROM (VALUES %s) AS v(service_id, status, consecutive_failures, checked_at)
+        WHERE ms.monitored_service_id = v.service_id
+        RETURNING ms.monitored_service_id
+        """.formatted(placeholders(results.size(), "(?::bigint, ?::varchar, ?::int, ?::timestamp)"));
+
+        Set<Long> existing = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (UptimeResult r : results) {
+                ps.setLong(i++, r.serviceId());
+                ps.setString(i++, r.status());
+                ps.setInt(i++, r.consecutiveFailures());
+                ps.setTimestamp(i++, Timestamp.from(r.checkedAt().toInstant()));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getLong(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static void insertLogs(Connection conn, List<UptimeResult> results) throws Exception {
+        if (results.isEmpty()) return;
+
+        String sql = """
+        INSERT INTO uptime_logs(
+            monitored_service_id, status, response_time_ms,
+            http_status, error_message, checked_at,
+            date_created, date_modified
+        )
+        VALUES %s
+        """.formatted(placeholders(results.size(), "(?, ?, ?, ?, ?, ?, NOW(), NOW())"));
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (UptimeResult r : results) {
+                ps.setLong(i++, r.serviceId());
+                ps.setString(i++, r.status());
+                ps.setObject(i++, r.responseTimeMs());
+                ps.setObject(i++, r.httpCode());
+                ps.setString(i++, r.errorMessage());
+                ps.setTimestamp(i++, Timestamp.from(r.checkedAt().toInstant()));
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static void insertEvents(Connection conn, List<UptimeResult> events) throws Exception {
+        if (events.isEmpty()) return;
+
+        String sql = """
+        INSERT INTO event_outbox(
+            service_id,
+            event_type,
+            payload,
+            status,
+            retries,
+            created_at,
+            updated_at
+        ) VALUES %s
+        """.formatted(placeholders(events.size(), "(?, ?, ?::jsonb, 'PENDING', 0, NOW(), NOW())"));
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (UptimeResult r : events) {
+                String eventType = "DOWN".equals(r.status()) ? "SERVICE_DOWN" : "SERVICE_RECOVERED";
+
+                Map<String, Object> payload = new HashMap<>();
+                payload.put("service_id", r.serviceId());
+                payload.put("service_name", r.serviceName());
+                payload.put("old_status", r.oldStatus());
+                payload.put("new_status", r.status());
+                payload.put("error_message", r.errorMessage());
+                payload.put("http_code", r.httpCode());
+                payload.put("response_time_ms", r.responseTimeMs());
+                payload.put("retry_count", r.retryCount());
+                payload.put("retry_delay", r.retryDelay());
+                payload.put("interval_seconds", r.intervalSeconds());
+                payload.put("checked_at", r.checkedAt().toString());
+
+                ps.setLong(i++, r.serviceId());
+                ps.setString(i++, eventType);
+                ps.setString(i++, mapper.writeValueAsString(payload));
+
+                logger.info("Event created: type={} for service {}", eventType, r.serviceName());
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int rows, String row) {
+        return String.join(", ", Collections.nCopies(rows, row));
+    }
+}
@@ -0,0 +1,339 @@
+package org.skypulse.tasks.rollup;
+
+import org.skypulse.tasks.probe.UptimeResultWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * UptimeRollups maintains per-service uptime aggregates in uptime_rollups at 1m, 1h and 1d granularity.
+ * - apply() folds a batch of results into per-bucket deltas and upserts them in the writer's transaction
+ * - Latency percentiles come from a fixed log-scale histogram, so buckets merge by element-wise addition
+ * - Downtime is counted as one check interval per DOWN result
+ * - Readers load a few rows per service and period instead of scanning uptime_logs
+ */
+public final class UptimeRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(UptimeRollups.class);
+
+    /** Upper bounds (ms) of the latency histogram buckets; a final bucket catches everything slower. */
+    static final int[] LATENCY_BOUNDS_MS = {
+            10, 25, 50, 75, 100, 150, 200, 300, 400, 500, 750,
+            1_000, 1_500, 2_000, 3_000, 5_000, 8_000, 15_000, 30_000
+    };
+
+    private UptimeRollups() {}
+
+    public enum Granularity {
+        MINUTE("1m", ChronoUnit.MINUTES, 7),
+        HOUR("1h", ChronoUnit.HOURS, 180),
+        DAY("1d", ChronoUnit.DAYS, 0);
+
+        private final String code;
+        private final ChronoUnit unit;
+        private final int retentionDays; // 0 keeps forever
+
+        Granularity(String code, ChronoUnit unit, int retentionDays) {
+            this.code = code;
+            this.unit = unit;
+            this.retentionDays = retentionDays;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public static Granularity fromCode(String code) {
+            for (Granularity g : values()) {
+                if (g.code.equalsIgnoreCase(code)) return g;
+            }
+            throw new IllegalArgumentException("Unknown granularity: " + code + " (expected 1m, 1h or 1d)");
+        }
+
+        /** Coarsest granularity that still gives useful resolution for the period. */
+        public static Granularity forPeriodDays(int days) {
+            if (days <= 1) return MINUTE;
+            if (days <= 14) return HOUR;
+            return DAY;
+        }
+    }
+
+    /**
+     * Mergeable aggregate of uptime checks.
+     */
+    public static final class Stats {
+        private long checks;
+        private long upChecks;
+        private long latencySumMs;
+        private long latencyCount;
+        private Integer minLatencyMs;
+        private Integer maxLatencyMs;
+        private final int[] histogram = new int[LATENCY_BOUNDS_MS.length + 1];
+        private long downtimeSeconds;
+
+        void add(UptimeResultWriter.UptimeResult r) {
+            checks++;
+            if ("UP".equals(r.status())) {
+                upChecks++;
+                if (r.responseTimeMs() >= 0) {
+                    int latency = (int) Math.min(r.responseTimeMs(), Integer.MAX_VALUE);
+                    latencySumMs += latency;
+                    latencyCount++;
+                    minLatencyMs = minLatencyMs == null ? latency : Math.min(minLatencyMs, latency);
+                    maxLatencyMs = maxLatencyMs == null ? latency : Math.max(maxLatencyMs, latency);
+                    histogram[bucketOf(latency)]++;
+                }
+            } else {
+                downtimeSeconds += Math.max(r.intervalSeconds(), 0);
+            }
+        }
+
+        public void merge(Stats other) {
+            checks += other.checks;
+            upChecks += other.upChecks;
+            latencySumMs += other.latencySumMs;
+            latencyCount += other.latencyCount;
+            if (other.minLatencyMs != null) {
+                minLatencyMs = minLatencyMs == null ? other.minLatencyMs : Math.min(minLatencyMs, other.minLatencyMs);
+            }
+            if (other.maxLatencyMs != null) {
+                maxLatencyMs = maxLatencyMs == null ? other.maxLatencyMs : Math.max(maxLatencyMs, other.maxLatencyMs);
+            }
+            for (int i = 0; i < histogram.length; i++) histogram[i] += other.histogram[i];
+            downtimeSeconds += other.downtimeSeconds;
+        }
+
+        public long checks() {
+            return checks;
+        }
+
+        public long upChecks() {
+            return upChecks;
+        }
+
+        public long downtimeSeconds() {
+            return downtimeSeconds;
+        }
+
+        public Integer minLatencyMs() {
+            return minLatencyMs;
+        }
+
+        public Integer maxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        public Double avgLatencyMs() {
+            return latencyCount == 0 ? null : (double) latencySumMs / latencyCount;
+        }
+
+        public Double uptimePercent() {
+            return checks == 0 ? null : upChecks * 100.0 / checks;
+        }
+
+        /** Upper bound of the histogram bucket holding the 95th percentile, clamped to the observed range. */
+        public Integer p95LatencyMs() {
+            if (latencyCount == 0) return null;
+            long target = (long) Math.ceil(latencyCount * 0.95);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    int bound = i < LATENCY_BOUNDS_MS.length ? LATENCY_BOUNDS_MS[i] : maxLatencyMs;
+                    return Math.max(minLatencyMs, Math.min(bound, maxLatencyMs));
+                }
+            }
+            return maxLatencyMs;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("checks", checks);
+            map.put("up_checks", upChecks);
+            map.put("uptime_percent", uptimePercent());
+            map.put("min_latency_ms", minLatencyMs);
+            map.put("avg_latency_ms", avgLatencyMs());
+            map.put("max_latency_ms", maxLatencyMs);
+            map.put("p95_latency_ms", p95LatencyMs());
+            map.put("downtime_seconds", downtimeSeconds);
+            return map;
+        }
+
+        private String histogramLiteral() {
+            StringJoiner joiner = new StringJoiner(",", "{", "}");
+            for (int count : histogram) joiner.add(Integer.toString(count));
+            return joiner.toString();
+        }
+
+        private static int bucketOf(int latencyMs) {
+            int idx = Arrays.binarySearch(LATENCY_BOUNDS_MS, latencyMs);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+
+    public record Bucket(long serviceId, String serviceName, Granularity granularity, LocalDateTime bucketStart, Stats stats) {}
+
+    private record Key(long serviceId, Granularity granularity, LocalDateTime bucketStart) {}
+
+    /**
+     * Fold results into per-bucket deltas and upsert them. Runs inside the caller's transaction.
+     */
+    public static void apply(Connection conn, List<UptimeResultWriter.UptimeResult> results) throws Exception {
+        if (results.isEmpty()) return;
+
+        Map<Key, Stats> deltas = new LinkedHashMap<>();
+        for (UptimeResultWriter.UptimeResult r : results) {
+            // Same local clock conversion JDBC applies to checked_at in uptime_logs
+            LocalDateTime checkedAt = r.checkedAt().atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            for (Granularity g : Granularity.values()) {
+                deltas.computeIfAbsent(new Key(r.serviceId(), g, g.truncate(checkedAt)), k -> new Stats()).add(r);
+            }
+        }
+
+        String sql = """
+        INSERT INTO uptime_rollups(
+            monitored_service_id, granularity, bucket_start,
+            check_count, up_count, latency_sum_ms, latency_count,
+            latency_min_ms, latency_max_ms, latency_histogram, downtime_seconds,
+            date_modified
+        )
+        VALUES %s
+        ON CONFLICT (monitored_service_id, granularity, bucket_start) DO UPDATE SET
+            check_count       = uptime_rollups.check_count + EXCLUDED.check_count,
+            up_count          = uptime_rollups.up_count + EXCLUDED.up_count,
+            latency_sum_ms    = uptime_rollups.latency_sum_ms + EXCLUDED.latency_sum_ms,
+            latency_count     = uptime_rollups.latency_count + EXCLUDED.latency_count,
+            latency_min_ms    = LEAST(uptime_rollups.latency_min_ms, EXCLUDED.latency_min_ms),
+            latency_max_ms    = GREATEST(uptime_rollups.latency_max_ms, EXCLUDED.latency_max_ms),
+            latency_histogram = int_array_add(uptime_rollups.latency_histogram, EXCLUDED.latency_histogram),
+            downtime_seconds  = uptime_rollups.downtime_seconds + EXCLUDED.downtime_seconds,
+            date_modified     = NOW()
+        """.formatted(String.join(", ", Collections.nCopies(deltas.size(),
+                "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?::int[], ?, NOW())")));
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Map.Entry<Key, Stats> entry : deltas.entrySet()) {
+                Key key = entry.getKey();
+                Stats s = entry.getValue();
+                ps.setLong(i++, key.serviceId());
+                ps.setString(i++, key.granularity().code());
+                ps.setTimestamp(i++, Timestamp.valueOf(key.bucketStart()));
+                ps.setLong(i++, s.checks);
+                ps.setLong(i++, s.upChecks);
+                ps.setLong(i++, s.latencySumMs);
+                ps.setLong(i++, s.latencyCount);
+                ps.setObject(i++, s.minLatencyMs);
+                ps.setObject(i++, s.maxLatencyMs);
+                ps.setString(i++, s.histogramLiteral());
+                ps.setLong(i++, s.downtimeSeconds);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Load rollup buckets in [from, to) at the given granularity, optionally for one service.
+     */
+    public static List<Bucket> load(Connection conn, Long serviceId, Granularity granularity,
+                                    LocalDateTime from, LocalDateTime to) throws Exception {
+        StringBuilder sql = new StringBuilder("""
+            SELECT r.monitored_service_id, ms.monitored_service_name, r.bucket_start,
+                   r.check_count, r.up_count, r.latency_sum_ms, r.latency_count,
+                   r.latency_min_ms, r.latency_max_ms, r.latency_histogram, r.downtime_seconds
+            FROM uptime_rollups r
+            INNER JOIN monitored_services ms
+                   ON ms.monitored_service_id = r.monitored_service_id
+            WHERE r.granularity = ?
+              AND r.bucket_start >= ?
+              AND r.bucket_start < ?
+        """);
+        if (serviceId != null) sql.append(" AND r.monitored_service_id = ?");
+        sql.append(" ORDER BY r.monitored_service_id, r.bucket_start");
+
+        List<Bucket> buckets = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            ps.setString(i++, granularity.code());
+            ps.setTimestamp(i++, Timestamp.valueOf(granularity.truncate(from)));
+            ps.setTimestamp(i++, Timestamp.valueOf(to));
+            if (serviceId != null) ps.setLong(i, serviceId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Stats s = new Stats();
+                    s.checks = rs.getLong("check_count");
+                    s.upChecks = rs.getLong("up_count");
+                    s.latencySumMs = rs.getLong("latency_sum_ms");
+                    s.latencyCount = rs.getLong("latency_count");
+                    s.minLatencyMs = (Integer) rs.getObject("latency_min_ms");
+                    s.maxLatencyMs = (Integer) rs.getObject("latency_max_ms");
+                    s.downtimeSeconds = rs.getLong("downtime_seconds");
+
+                    Array histogram = rs.getArray("latency_histogram");
+                    if (histogram != null) {
+                        Integer[] counts = (Integer[]) histogram.getArray();
+                        for (int h = 0; h < counts.length && h < s.histogram.length; h++) {
+                            s.histogram[h] = counts[h] != null ? counts[h] : 0;
+                        }
+                    }
+
+                    buckets.add(new Bucket(
+                            rs.getLong("monitored_service_id"),
+                            rs.getString("monitored_service_name"),
+                            granularity,
+                            rs.getTimestamp("bucket_start").toLocalDateTime(),
+                            s
+                    ));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Merge buckets into one Stats per service, keeping the order of first appearance.
+     */
+    public static Map<Long, Stats> summarize(List<Bucket> buckets) {
+        Map<Long, Stats> totals = new LinkedHashMap<>();
+        for (Bucket b : buckets) {
+            totals.computeIfAbsent(b.serviceId(), k -> new Stats()).merge(b.stats());
+        }
+        return totals;
+    }
+
+    /**
+     * Drop fine-grained buckets past their retention; daily buckets are kept.
+     * The cutoff uses the JVM clock, the same one bucket_start is computed from.
+     */
+    public static void prune(Connection conn) throws Exception {
+        for (Granularity g : Granularity.values()) {
+            if (g.retentionDays <= 0) continue;
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    DELETE FROM uptime_rollups
+                    WHERE granularity = ?
+                      AND bucket_start < ?
+                    """)) {
+                ps.setString(1, g.code());
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusDays(g.retentionDays)));
+                int deleted = ps.executeUpdate();
+                if (deleted > 0) {
+                    logger.info("Pruned {} expired {} uptime rollups", deleted, g.code());
+                }
+            }
+        }
+    }
+}
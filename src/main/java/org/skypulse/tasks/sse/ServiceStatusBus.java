@@ -0,0 +1,323 @@
+package org.skypulse.tasks.sse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.skypulse.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * ServiceStatusBus holds the live status of every active service and turns changes into SSE events.
+ * - The uptime writer and the SSL monitor publish after their transaction commits
+ * - Each change becomes a delta (service id plus changed fields) with a monotonically increasing event id
+ * - The last REPLAY_CAPACITY deltas are kept in a ring buffer for Last-Event-ID replay
+ * - The full snapshot is serialized once per change and cached until the next one; its timestamp is
+ *   stamped when it is sent, so a cached snapshot never reports when it was built
+ * - reconcile() corrects drift from a database read; it only emits deltas for real differences
+ * - Listeners subscribe with a Subscription; an inverted index (service uuid, region, group -> listeners)
+ *   routes each delta to interested listeners only, so per-change work follows subscribers, not connections
+ */
+public final class ServiceStatusBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceStatusBus.class);
+
+    private static final int REPLAY_CAPACITY = 1024;
+
+    private static final ServiceStatusBus SHARED = new ServiceStatusBus();
+
+    public record ServiceStatus(long serviceId, String uuid, String name, String region, Set<String> groups,
+                                String status, Long responseTimeMs, Integer sslDaysRemaining) {
+
+        public ServiceStatus {
+            groups = groups != null ? Set.copyOf(groups) : Set.of();
+        }
+
+        public String sslStatus() {
+            if (sslDaysRemaining == null) return "OK";
+            if (sslDaysRemaining <= 7) return "SEVERE";
+            if (sslDaysRemaining <= 14) return "CRITICAL";
+            if (sslDaysRemaining <= 30) return "WARNING";
+            return "OK";
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("uuid", uuid);
+            map.put("name", name);
+            map.put("region", region);
+            map.put("status", status);
+            map.put("response_time_ms", responseTimeMs);
+            map.put("ssl_days_remaining", sslDaysRemaining);
+            map.put("ssl_status", sslStatus());
+            return map;
+        }
+    }
+
+    /** One change, already serialized; bytes is the UTF-8 size of json. subject is the service state used for routing. */
+    public record Delta(long eventId, ServiceStatus subject, String json, int bytes) {}
+
+    /** Cached snapshot. body is serialized without a timestamp; json() adds the current time. */
+    public record Snapshot(long eventId, String body) {
+        public String json() {
+            String timestamp = "{\"timestamp\":\"" + Instant.now() + "\"";
+            return body.length() > 2 ? timestamp + "," + body.substring(1) : timestamp + "}";
+        }
+    }
+
+    public interface Listener {
+        void onSnapshot(Snapshot snapshot);
+
+        void onDelta(Delta delta);
+    }
+
+    private final Map<Long, ServiceStatus> services = new LinkedHashMap<>();
+    private final Delta[] ring = new Delta[REPLAY_CAPACITY];
+    // Inverted index; all guarded by the bus lock
+    private final Map<Listener, Subscription> subscriptions = new HashMap<>();
+    private final Set<Listener> fleet = new LinkedHashSet<>();
+    private final Map<String, Set<Listener>> byService = new HashMap<>();
+    private final Map<String, Set<Listener>> byRegion = new HashMap<>();
+    private final Map<String, Set<Listener>> byGroup = new HashMap<>();
+    // Seeded from the clock so ids from a previous run fall outside the ring and get a snapshot
+    private long lastEventId = System.currentTimeMillis();
+    private final Map<String, Snapshot> snapshots = new HashMap<>();
+    // system_settings.sse_push_interval; clients time their reconnects from it
+    private int pushIntervalSeconds = 60;
+
+    private ServiceStatusBus() {}
+
+    public static ServiceStatusBus shared() {
+        return SHARED;
+    }
+
+    /**
+     * Register a listener and bring it up to date: replay its deltas after lastEventId when the ring
+     * still holds them, otherwise send the snapshot for its subscription.
+     */
+    public synchronized void subscribe(Listener listener, Subscription subscription, String lastEventId) {
+        List<Delta> replay = since(lastEventId);
+        if (replay != null) {
+            for (Delta delta : replay) {
+                if (subscription.matches(delta.subject())) listener.onDelta(delta);
+            }
+        } else {
+            listener.onSnapshot(snapshot(subscription));
+        }
+
+        subscriptions.put(listener, subscription);
+        if (subscription.isAll()) fleet.add(listener);
+        subscription.services().forEach(k -> byService.computeIfAbsent(k, x -> new LinkedHashSet<>()).add(listener));
+        subscription.regions().forEach(k -> byRegion.computeIfAbsent(k, x -> new LinkedHashSet<>()).add(listener));
+        subscription.groups().forEach(k -> byGroup.computeIfAbsent(k, x -> new LinkedHashSet<>()).add(listener));
+    }
+
+    /**
+     * Send the current snapshot to a listener that skipped deltas. Runs under the bus lock,
+     * so no delta can slip between the snapshot and the listener's next frame.
+     */
+    public synchronized void resync(Listener listener) {
+        Subscription subscription = subscriptions.get(listener);
+        if (subscription != null) listener.onSnapshot(snapshot(subscription));
+    }
+
+    public synchronized void unsubscribe(Listener listener) {
+        Subscription subscription = subscriptions.remove(listener);
+        if (subscription == null) return;
+        fleet.remove(listener);
+        subscription.services().forEach(k -> unindex(byService, k, listener));
+        subscription.regions().forEach(k -> unindex(byRegion, k, listener));
+        subscription.groups().forEach(k -> unindex(byGroup, k, listener));
+    }
+
+    public synchronized int subscribers() {
+        return subscriptions.size();
+    }
+
+    private static void unindex(Map<String, Set<Listener>> index, String key, Listener listener) {
+        Set<Listener> set = index.get(key);
+        if (set == null) return;
+        set.remove(listener);
+        if (set.isEmpty()) index.remove(key);
+    }
+
+    public synchronized void uptimeChanged(long serviceId, String uuid, String name, String status, long responseTimeMs) {
+        ServiceStatus current = services.get(serviceId);
+        ServiceStatus next = new ServiceStatus(serviceId,
+                uuid != null ? uuid : current != null ? current.uuid() : null,
+                name,
+                current != null ? current.region() : null,
+                current != null ? current.groups() : Set.of(),
+                status,
+                responseTimeMs >= 0 ? responseTimeMs : null,
+                current != null ? current.sslDaysRemaining() : null);
+        apply(current, next);
+    }
+
+    public synchronized void sslChanged(long serviceId, int daysRemaining) {
+        ServiceStatus current = services.get(serviceId);
+        if (current == null) return; // not active, or not loaded yet; reconcile picks it up
+        apply(current, new ServiceStatus(serviceId, current.uuid(), current.name(), current.region(), current.groups(),
+                current.status(), current.responseTimeMs(), daysRemaining));
+    }
+
+    /**
+     * Replace the state with a fresh database read, emitting deltas for what differs.
+     */
+    public synchronized void reconcile(List<ServiceStatus> fresh) {
+        Set<Long> seen = new HashSet<>();
+        int changes = 0;
+        for (ServiceStatus next : fresh) {
+            seen.add(next.serviceId());
+            if (apply(services.get(next.serviceId()), next)) changes++;
+        }
+        for (Long id : new ArrayList<>(services.keySet())) {
+            if (!seen.contains(id)) {
+                apply(services.get(id), null);
+                changes++;
+            }
+        }
+        if (changes > 0) logger.info("SSE status reconciled: {} services changed", changes);
+    }
+
+    /** Snapshot of the services matching subscription, serialized once per change and subscription. */
+    public synchronized Snapshot snapshot(Subscription subscription) {
+        Snapshot snapshot = snapshots.get(subscription.key());
+        if (snapshot == null) {
+            int up = 0, down = 0, sslWarnings = 0, sslCritical = 0, sslSevere = 0;
+            List<Map<String, Object>> list = new ArrayList<>();
+            for (ServiceStatus s : services.values()) {
+                if (!subscription.matches(s)) continue;
+                if ("UP".equalsIgnoreCase(s.status())) up++;
+                if ("DOWN".equalsIgnoreCase(s.status())) down++;
+                switch (s.sslStatus()) {
+                    case "WARNING" -> sslWarnings++;
+                    case "CRITICAL" -> sslCritical++;
+                    case "SEVERE" -> sslSevere++;
+                    default -> { }
+                }
+                list.add(s.toMap());
+            }
+
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("event_id", lastEventId);
+            data.put("total_services", list.size());
+            data.put("up_count", up);
+            data.put("down_count", down);
+            data.put("ssl_warnings", sslWarnings);
+            data.put("ssl_critical", sslCritical);
+            data.put("ssl_severe", sslSevere);
+            data.put("services", list);
+            data.put("sse_push_interval_seconds", pushIntervalSeconds);
+
+            snapshot = new Snapshot(lastEventId, serialize(data));
+            snapshots.put(subscription.key(), snapshot);
+        }
+        return snapshot;
+    }
+
+    /** Value reported as sse_push_interval_seconds in snapshots. */
+    public synchronized void pushIntervalSeconds(int seconds) {
+        if (seconds <= 0 || seconds == pushIntervalSeconds) return;
+        pushIntervalSeconds = seconds;
+        snapshots.clear();
+    }
+
+    public synchronized long lastEventId() {
+        return lastEventId;
+    }
+
+    /** Deltas after the given id, oldest first; null when the id is unknown or already evicted. */
+    private List<Delta> since(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        long from;
+        try {
+            from = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (from > this.lastEventId) return null;
+
+        long missed = this.lastEventId - from;
+        if (missed >= REPLAY_CAPACITY) return null;
+
+        List<Delta> replay = new ArrayList<>((int) missed);
+        for (long id = from + 1; id <= this.lastEventId; id++) {
+            Delta delta = ring[(int) (id % REPLAY_CAPACITY)];
+            if (delta == null || delta.eventId() != id) return null;
+            replay.add(delta);
+        }
+        return replay;
+    }
+
+    /** Record current -> next (either may be null) and notify listeners. Returns false when nothing changed. */
+    private boolean apply(ServiceStatus current, ServiceStatus next) {
+        if (Objects.equals(current, next)) return false;
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        ServiceStatus subject = next != null ? next : current;
+        long serviceId = subject.serviceId();
+        String uuid = subject.uuid();
+        if (next == null) {
+            services.remove(serviceId);
+        } else {
+            Map<String, Object> before = current != null ? current.toMap() : Map.of();
+            for (Map.Entry<String, Object> field : next.toMap().entrySet()) {
+                if (!Objects.equals(before.get(field.getKey()), field.getValue())) {
+                    changes.put(field.getKey(), field.getValue());
+                }
+            }
+            services.put(serviceId, next);
+        }
+
+        long eventId = ++lastEventId;
+        snapshots.clear();
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("event_id", eventId);
+        data.put("uuid", uuid);
+        if (next == null) {
+            data.put("removed", true);
+        } else {
+            data.put("changes", changes);
+        }
+
+        String json = serialize(data);
+        Delta delta = new Delta(eventId, subject, json, SseHandler.utf8Length(json));
+        ring[(int) (eventId % REPLAY_CAPACITY)] = delta;
+
+        for (Listener listener : interested(current, next)) {
+            try {
+                listener.onDelta(delta);
+            } catch (Exception e) {
+                logger.warn("SSE listener failed: {}", e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Listeners subscribed to the service before or after the change; a service moving region or
+     * group is seen by both sides.
+     */
+    private Set<Listener> interested(ServiceStatus current, ServiceStatus next) {
+        Set<Listener> out = new LinkedHashSet<>(fleet);
+        for (ServiceStatus s : new ServiceStatus[]{current, next}) {
+            if (s == null) continue;
+            if (s.uuid() != null) out.addAll(byService.getOrDefault(s.uuid(), Set.of()));
+            if (s.region() != null) out.addAll(byRegion.getOrDefault(s.region(), Set.of()));
+            for (String group : s.groups()) out.addAll(byGroup.getOrDefault(group, Set.of()));
+        }
+        return out;
+    }
+
+    private String serialize(Map<String, Object> data) {
+        try {
+            return JsonUtil.mapper().writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing SSE payload: {}", e.getMessage(), e);
+            return "{}";
+        }
+    }
+}
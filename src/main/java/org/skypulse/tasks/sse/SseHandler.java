@@ -8,20 +8,124 @@ import org.skypulse.utils.JsonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Base SSE handler.
+ * - Payloads are serialized once and the same String, with its UTF-8 size, is handed to every connection
+ * - Each connection tracks frames queued in Undertow but not yet written (EventCallback done/failed)
+ * - Past MAX_PENDING frames a connection is lagging: further frames are dropped and, once it drains,
+ *   it is resynced with the latest state via onDrained(), on the scheduler thread
+ * - A connection lagging for longer than MAX_LAG_MILLIS is closed
+ */
 public class SseHandler implements ServerSentEventConnectionCallback {
 
+    private static final int MAX_PENDING = 32;
+    private static final long MAX_LAG_MILLIS = 30_000;
+    // Comment frames on quiet streams; keeps proxies and the listener idle timeout from closing them
+    private static final long KEEP_ALIVE_MILLIS = 15_000;
+
+    private static final AtomicInteger openConnections = new AtomicInteger();
+    private static final AtomicLong framesSent = new AtomicLong();
+    private static final AtomicLong bytesPushed = new AtomicLong();
+    private static final AtomicLong framesDropped = new AtomicLong();
+    private static final AtomicLong resyncs = new AtomicLong();
+    private static final AtomicLong slowClosed = new AtomicLong();
+
     protected final Logger logger = LoggerFactory.getLogger(SseHandler.class);
     protected final Set<ServerSentEventConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<>());
     protected final ServerSentEventHandler handler;
     protected final ScheduledExecutorService scheduler;
+    private final Map<ServerSentEventConnection, Client> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Send state of one connection.
+     */
+    protected final class Client {
+        protected final ServerSentEventConnection connection;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long laggingSince; // 0 when keeping up
+
+        protected Client(ServerSentEventConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Queue a frame unless the connection is lagging. Returns false when the frame was dropped.
+         * bytes is the UTF-8 size of data, see utf8Length.
+         */
+        protected boolean send(String data, int bytes, String event, String id) {
+            if (data == null || !connection.isOpen()) return false;
+
+            if (laggingSince != 0) {
+                framesDropped.incrementAndGet();
+                if (pending.get() == 0) {
+                    // Drained between the overflow and now without a callback noticing
+                    drained(this);
+                } else if (System.currentTimeMillis() - laggingSince > MAX_LAG_MILLIS) {
+                    closeSlow();
+                }
+                return false;
+            }
+            if (pending.get() >= MAX_PENDING) {
+                laggingSince = System.currentTimeMillis();
+                framesDropped.incrementAndGet();
+                return false;
+            }
+
+            pending.incrementAndGet();
+            connection.send(data, event, id, new Frame(bytes));
+            return true;
+        }
+
+        /** Clear the lagging flag; callers send the resync frame right after. */
+        protected void caughtUp() {
+            laggingSince = 0;
+        }
+
+        /** Completion callback of one frame; carries the size counted when the payload was serialized. */
+        private final class Frame implements ServerSentEventConnection.EventCallback {
+            private final int bytes;
+
+            Frame(int bytes) {
+                this.bytes = bytes;
+            }
+
+            @Override
+            public void done(ServerSentEventConnection connection, String data, String event, String id) {
+                framesSent.incrementAndGet();
+                bytesPushed.addAndGet(bytes);
+                if (pending.decrementAndGet() == 0 && laggingSince != 0) {
+                    drained(Client.this);
+                }
+            }
+
+            @Override
+            public void failed(ServerSentEventConnection connection, String data, String event, String id, IOException e) {
+                pending.decrementAndGet();
+                logger.debug("SSE frame failed: {}", e.getMessage());
+            }
+        }
+
+        private void closeSlow() {
+            slowClosed.incrementAndGet();
+            logger.info("Closing SSE connection that lagged over {} ms", MAX_LAG_MILLIS);
+            try {
+                connection.close();
+            } catch (IOException ignored) {}
+        }
+    }
 
     public SseHandler(long initialDelaySec, long intervalSec) {
         this.handler = new ServerSentEventHandler(this);
@@ -31,7 +135,7 @@ public class SseHandler implements ServerSentEventConnectionCallback {
             intervalSec = 30;
         }
 
-        this.scheduler.scheduleAtFixedRate(this::pushToAll, initialDelaySec, intervalSec, TimeUnit.SECONDS);
+        this.scheduler.scheduleAtFixedRate(this::tick, initialDelaySec, intervalSec, TimeUnit.SECONDS);
     }
 
 
@@ -48,31 +152,85 @@ public class SseHandler implements ServerSentEventConnectionCallback {
 
     @Override
     public void connected(ServerSentEventConnection connection, String lastEventId) {
-        connections.add(connection);
-        connection.addCloseTask((connections::remove));
-        push(connection);
+        Client client = register(connection);
+        String json = serializeToJson(generateData());
+        if (json != null) client.send(json, utf8Length(json), null, null);
         logger.info("New SSE connection established (Last Event ID: {}). Total connections: {}",
                 lastEventId, connections.size());
     }
 
+    /** Track a new connection; it is forgotten again when it closes. */
+    protected Client register(ServerSentEventConnection connection) {
+        Client client = new Client(connection);
+        connection.setKeepAliveTime(KEEP_ALIVE_MILLIS);
+        connections.add(connection);
+        clients.put(connection, client);
+        openConnections.incrementAndGet();
+        connection.addCloseTask(c -> {
+            connections.remove(c);
+            if (clients.remove(c) != null) openConnections.decrementAndGet();
+            onClosed(client);
+        });
+        return client;
+    }
+
+    protected void onClosed(Client client) {}
+
+    /**
+     * Hand the resync to the scheduler thread. done() runs on the IO thread holding the connection's
+     * monitor, and a resync takes the publisher's lock, which is held while sending to connections;
+     * running it there would invert that lock order.
+     */
+    private void drained(Client client) {
+        resyncs.incrementAndGet();
+        try {
+            scheduler.execute(() -> onDrained(client));
+        } catch (RejectedExecutionException e) {
+            logger.debug("SSE handler shut down, resync skipped");
+        }
+    }
+
+    /** A lagging client drained its queue. Runs on the scheduler thread; polling handlers resend on the next tick. */
+    protected void onDrained(Client client) {
+        client.caughtUp();
+    }
+
+    // Runs every interval; polling handlers push fresh data, event-driven ones override it
+    protected void tick() {
+        pushToAll();
+    }
 
     private void pushToAll() {
-        Map<String, Object> data = generateData();
-        String json = serializeToJson(data);
-        for (ServerSentEventConnection conn : connections) {
-            if (conn.isOpen()) conn.send(json);
+        if (clients.isEmpty()) return;
+        String json = serializeToJson(generateData());
+        if (json == null) return;
+        int bytes = utf8Length(json);
+        for (Client client : clients.values()) {
+            client.send(json, bytes, null, null);
         }
     }
 
-    public void push(ServerSentEventConnection connection) {
-        Map<String, Object> data = generateData();
-        String json = serializeToJson(data);
-        if (json != null && connection.isOpen()) {
-            connection.send(json);
+    /** UTF-8 size of s without encoding it; service names and error messages are not always ASCII. */
+    static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
         }
+        return bytes;
     }
 
-    private String serializeToJson(Map<String, Object> data) {
+    protected String serializeToJson(Map<String, Object> data) {
+        if (data == null) return null;
         try {
             return JsonUtil.mapper().writeValueAsString(data);
         } catch (JsonProcessingException e) {
@@ -81,6 +239,18 @@ public class SseHandler implements ServerSentEventConnectionCallback {
         }
     }
 
+    /** Fan-out counters across all SSE handlers. */
+    public static Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("connections", openConnections.get());
+        map.put("frames_sent", framesSent.get());
+        map.put("bytes_pushed", bytesPushed.get());
+        map.put("frames_dropped", framesDropped.get());
+        map.put("resyncs", resyncs.get());
+        map.put("slow_connections_closed", slowClosed.get());
+        return map;
+    }
+
 
     // Subclasses Override to provide data for SSE push
     protected Map<String, Object> generateData() {
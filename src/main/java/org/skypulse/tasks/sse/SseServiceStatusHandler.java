@@ -1,39 +1,193 @@
 package org.skypulse.tasks.sse;
 
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.sse.ServerSentEventConnection;
+import io.undertow.server.handlers.sse.ServerSentEventHandler;
+import io.undertow.util.StatusCodes;
 import org.skypulse.config.database.DatabaseManager;
+import org.skypulse.config.database.DatabaseUtils;
 import org.skypulse.config.database.dtos.SystemSettings;
+import org.skypulse.config.database.dtos.UserContext;
+import org.skypulse.utils.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.skypulse.rest.auth.RequireRoles;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.Instant;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service status stream fed by ServiceStatusBus.
+ * - On connect: deltas after Last-Event-ID when still buffered, otherwise the cached snapshot (unnamed event)
+ * - Afterwards only "delta" events, pushed as the uptime and SSL pipelines commit
+ * - A client that falls behind skips deltas and gets one fresh snapshot once it drains
+ * - The database is read only to reconcile, every RECONCILE_INTERVAL_SECONDS (or ssePushInterval if longer)
+ * - Streams are filtered server side: ?services=uuid,..&regions=name,..&groups=uuid,..&mine=true
+ *   (mine adds the caller's contact groups); no filter means the whole fleet
+ * - Mounted behind AuthMiddleware, so @RequireRoles applies and the caller is known
+ */
 @RequireRoles({"ADMIN", "OPERATOR", "VIEWER"})
-public class SseServiceStatusHandler extends SseHandler {
+public class SseServiceStatusHandler extends SseHandler implements HttpHandler {
+
+    private static final long RECONCILE_INTERVAL_SECONDS = 300;
+    private static final int MAX_FILTER_VALUES = 200;
 
     private final Logger logger = LoggerFactory.getLogger(SseServiceStatusHandler.class);
+    private final ServiceStatusBus bus = ServiceStatusBus.shared();
+    private final Map<Client, ServiceStatusBus.Listener> listeners = new ConcurrentHashMap<>();
 
     public SseServiceStatusHandler() throws Exception {
-        super(0, SystemSettings.loadSystemDefaults().ssePushInterval());
+        super(0, Math.max(SystemSettings.loadSystemDefaults().ssePushInterval(), RECONCILE_INTERVAL_SECONDS));
+        bus.pushIntervalSeconds(SystemSettings.loadSystemDefaults().ssePushInterval());
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        Subscription subscription;
+        try {
+            subscription = parseSubscription(exchange);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (subscription == null) {
+            ResponseUtil.sendError(exchange, StatusCodes.NOT_FOUND, "You are not a member of any contact group");
+            return;
+        }
+
+        new ServerSentEventHandler((connection, lastEventId) -> connect(connection, lastEventId, subscription))
+                .handleRequest(exchange);
     }
 
     @Override
-    protected Map<String, Object> generateData() {
-        Map<String, Object> response = new LinkedHashMap<>();
-        List<Map<String, Object>> services = new ArrayList<>();
-        int totalServices = 0, upCount = 0, downCount = 0;
-        int sslWarnings = 0, sslCritical = 0, sslSevere = 0;
+    public void connected(ServerSentEventConnection connection, String lastEventId) {
+        connect(connection, lastEventId, Subscription.ALL);
+    }
+
+    private void connect(ServerSentEventConnection connection, String lastEventId, Subscription subscription) {
+        Client client = register(connection);
+
+        ServiceStatusBus.Listener listener = new ServiceStatusBus.Listener() {
+            @Override
+            public void onSnapshot(ServiceStatusBus.Snapshot snapshot) {
+                // The snapshot supersedes whatever this client skipped while lagging
+                client.caughtUp();
+                String json = snapshot.json(); // stamped per send, so sized per send
+                client.send(json, utf8Length(json), null, String.valueOf(snapshot.eventId()));
+            }
+
+            @Override
+            public void onDelta(ServiceStatusBus.Delta delta) {
+                client.send(delta.json(), delta.bytes(), "delta", String.valueOf(delta.eventId()));
+            }
+        };
+
+        listeners.put(client, listener);
+        bus.subscribe(listener, subscription, lastEventId);
+
+        logger.info("New SSE connection established (Last Event ID: {}, filtered: {}). Total connections: {}",
+                lastEventId, !subscription.isAll(), connections.size());
+    }
+
+    /**
+     * Subscription from the query string; null when mine=true is the only filter and the caller has no groups.
+     */
+    private Subscription parseSubscription(HttpServerExchange exchange) throws SQLException {
+        Map<String, Deque<String>> params = exchange.getQueryParameters();
+        Set<String> services = uuids(DatabaseUtils.getParam(params, "services"), "services");
+        Set<String> regions = values(DatabaseUtils.getParam(params, "regions"));
+        Set<String> groups = uuids(DatabaseUtils.getParam(params, "groups"), "groups");
+
+        if ("true".equalsIgnoreCase(DatabaseUtils.getParam(params, "mine"))) {
+            UserContext ctx = exchange.getAttachment(UserContext.ATTACHMENT_KEY);
+            if (ctx == null || ctx.userId() == null) throw new IllegalArgumentException("mine requires an authenticated user");
+            Set<String> own = userGroups(ctx.userId());
+            if (own.isEmpty() && services.isEmpty() && regions.isEmpty() && groups.isEmpty()) return null;
+            groups = new HashSet<>(groups);
+            groups.addAll(own);
+        }
+
+        if (services.size() + regions.size() + groups.size() > MAX_FILTER_VALUES) {
+            throw new IllegalArgumentException("At most " + MAX_FILTER_VALUES + " filter values are allowed");
+        }
+        return new Subscription(services, regions, groups);
+    }
 
+    private static Set<String> values(String raw) {
+        if (raw == null || raw.isBlank()) return Set.of();
+        Set<String> out = new HashSet<>();
+        for (String part : raw.split(",")) {
+            if (!part.isBlank()) out.add(part.trim());
+        }
+        return out;
+    }
+
+    private static Set<String> uuids(String raw, String name) {
+        Set<String> out = new HashSet<>();
+        for (String value : values(raw)) {
+            try {
+                out.add(UUID.fromString(value).toString());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid UUID in " + name + ": " + value);
+            }
+        }
+        return out;
+    }
+
+    private Set<String> userGroups(long userId) throws SQLException {
+        String sql = """
+            SELECT cg.uuid
+            FROM contact_group_members cgm
+            JOIN contact_groups cg ON cg.contact_group_id = cgm.contact_group_id
+            WHERE cgm.user_id = ? AND cg.is_deleted = FALSE
+            """;
+        Set<String> out = new HashSet<>();
+        try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(rs.getObject("uuid").toString());
+            }
+        }
+        return out;
+    }
+
+    @Override
+    protected void onClosed(Client client) {
+        ServiceStatusBus.Listener listener = listeners.remove(client);
+        if (listener != null) bus.unsubscribe(listener);
+    }
+
+    @Override
+    protected void onDrained(Client client) {
+        ServiceStatusBus.Listener listener = listeners.get(client);
+        if (listener != null) bus.resync(listener);
+    }
+
+    @Override
+    protected void tick() {
+        try {
+            bus.pushIntervalSeconds(SystemSettings.loadSystemDefaults().ssePushInterval());
+        } catch (Exception e) {
+            logger.warn("Failed to reload sse_push_interval: {}", e.getMessage());
+        }
+        reconcile();
+    }
+
+    private void reconcile() {
         String sql = """
             SELECT ms.uuid,
                    ms.monitored_service_id,
                    ms.monitored_service_name,
+                   ms.monitored_service_region,
                    ms.last_uptime_status,
+                   g.group_uuids,
                    ul.response_time_ms,
                    sl.days_remaining
             FROM monitored_services ms
@@ -51,71 +205,46 @@ public class SseServiceStatusHandler extends SseHandler {
                 ORDER BY last_checked DESC
                 LIMIT 1
             ) sl ON true
+            LEFT JOIN LATERAL (
+                SELECT array_agg(cg.uuid::text) AS group_uuids
+                FROM monitored_services_contact_groups mscg
+                JOIN contact_groups cg ON cg.contact_group_id = mscg.contact_group_id
+                WHERE mscg.monitored_service_id = ms.monitored_service_id
+                  AND cg.is_deleted = FALSE
+            ) g ON true
             WHERE ms.is_active = TRUE
+            ORDER BY ms.monitored_service_id
             """;
 
+        if (!DatabaseManager.isInitialized()) return;
+
+        List<ServiceStatusBus.ServiceStatus> services = new ArrayList<>();
         try (Connection conn = Objects.requireNonNull(DatabaseManager.getDataSource()).getConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                totalServices++;
-
-                String status = rs.getString("last_uptime_status");
-                if ("UP".equalsIgnoreCase(status)) upCount++;
-                if ("DOWN".equalsIgnoreCase(status)) downCount++;
-
-                Integer daysRemaining = rs.getObject("days_remaining", Integer.class);
-                String sslStatus = "OK";
-
-                if (daysRemaining != null) {
-                    if (daysRemaining <= 7) {
-                        sslStatus = "SEVERE";
-                        sslSevere++;
-                    } else if (daysRemaining <= 14) {
-                        sslStatus = "CRITICAL";
-                        sslCritical++;
-                    } else if (daysRemaining <= 30) {
-                        sslStatus = "WARNING";
-                        sslWarnings++;
-                    }
-                }
-
-                Map<String, Object> service = new HashMap<>();
-                service.put("uuid", rs.getObject("uuid"));
-                service.put("name", rs.getString("monitored_service_name"));
-                service.put("status", status);
-                service.put("response_time_ms", rs.getObject("response_time_ms"));
-                service.put("ssl_days_remaining", daysRemaining);
-                service.put("ssl_status", sslStatus);
-
-                services.add(service);
+                Object uuid = rs.getObject("uuid");
+                Integer responseTimeMs = rs.getObject("response_time_ms", Integer.class);
+                Array groupArray = rs.getArray("group_uuids");
+                Set<String> groups = groupArray != null ? Set.of((String[]) groupArray.getArray()) : Set.of();
+                services.add(new ServiceStatusBus.ServiceStatus(
+                        rs.getLong("monitored_service_id"),
+                        uuid != null ? uuid.toString() : null,
+                        rs.getString("monitored_service_name"),
+                        rs.getString("monitored_service_region"),
+                        groups,
+                        rs.getString("last_uptime_status"),
+                        responseTimeMs != null ? responseTimeMs.longValue() : null,
+                        rs.getObject("days_remaining", Integer.class)
+                ));
             }
 
         } catch (SQLException e) {
-            logger.error("Error fetching service status for SSE: {}", e.getMessage(), e);
-        }
-
-        SystemSettings.SystemDefaults systemDefaults;
-        try {
-            systemDefaults = SystemSettings.loadSystemDefaults();
-        } catch (Exception e) {
-            logger.error("Failed to load system defaults", e);
-            systemDefaults = null;
+            logger.error("Error reconciling service status for SSE: {}", e.getMessage(), e);
+            return;
         }
 
-        response.put("timestamp", Instant.now().toString());
-        response.put("total_services", totalServices);
-        response.put("up_count", upCount);
-        response.put("down_count", downCount);
-        response.put("ssl_warnings", sslWarnings);
-        response.put("ssl_critical", sslCritical);
-        response.put("ssl_severe", sslSevere);
-        response.put("services", services);
-        response.put("sse_push_interval_seconds", systemDefaults != null
-                ? systemDefaults.ssePushInterval()
-                : 60);
-
-        return response;
+        bus.reconcile(services);
     }
 }
@@ -0,0 +1,38 @@
+package org.skypulse.tasks.sse;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What a status stream wants to see: services by uuid, regions, or contact groups by uuid.
+ * A service matches when it hits any of the three sets; all sets empty means the whole fleet.
+ */
+public record Subscription(Set<String> services, Set<String> regions, Set<String> groups) {
+
+    public static final Subscription ALL = new Subscription(Set.of(), Set.of(), Set.of());
+
+    public Subscription {
+        services = Set.copyOf(services);
+        regions = Set.copyOf(regions);
+        groups = Set.copyOf(groups);
+    }
+
+    public boolean isAll() {
+        return services.isEmpty() && regions.isEmpty() && groups.isEmpty();
+    }
+
+    public boolean matches(ServiceStatusBus.ServiceStatus s) {
+        if (isAll()) return true;
+        if (s.uuid() != null && services.contains(s.uuid())) return true;
+        if (s.region() != null && regions.contains(s.region())) return true;
+        for (String group : s.groups()) {
+            if (groups.contains(group)) return true;
+        }
+        return false;
+    }
+
+    /** Stable key for caching per-subscription snapshots. */
+    String key() {
+        return "s" + new TreeSet<>(services) + "r" + new TreeSet<>(regions) + "g" + new TreeSet<>(groups);
+    }
+}
@@ -3,13 +3,12 @@ package org.skypulse.tasks.tasks;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.mustachejava.DefaultMustacheFactory;
-import com.github.mustachejava.Mustache;
 import org.skypulse.config.database.JdbcUtils;
 import org.skypulse.config.database.dtos.SystemSettings.SystemDefaults;
+import org.skypulse.notifications.NotificationReferenceData;
 import org.skypulse.notifications.NotificationSender;
 import org.skypulse.notifications.RecipientResolver;
-import org.skypulse.notifications.TemplateLoader;
+import org.skypulse.notifications.TemplateCache;
 import org.skypulse.notifications.email.EmailSender;
 import org.skypulse.tasks.ScheduledTask;
 import org.skypulse.utils.JsonUtil;
@@ -17,29 +16,81 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.sql.*;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers event_outbox rows with a claim-and-lease model.
+ * - claim(): one UPDATE ... RETURNING moves due rows to IN_FLIGHT with lease_owner/lease_until,
+ *   so no other tick, worker or node can pick them while they are being sent
+ * - A lease is renewed between recipients once a third of it is used; a worker that lost it stops
+ *   without completing
+ * - Expired IN_FLIGHT leases (crashed node) are claimable again; after MAX_CLAIMS the row is FAILED
+ * - PENDING rows with a future lease_until are deferred (SERVICE_DOWN cooldown, retry backoff)
+ * - Recipients already sent to are kept in delivered (saved on lease renewal, release and lease loss),
+ *   so a reclaimed event resumes where it stopped instead of sending to everyone again
+ * - Completed ids are marked PROCESSED in one batched UPDATE per tick
+ * - Inserts wake the processor through OutboxListener (LISTEN/NOTIFY); the timer is only a safety
+ *   sweep for deferred rows, expired leases and notifications missed while disconnected
+ */
 public class NotificationProcessorTask implements ScheduledTask {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationProcessorTask.class);
     private static final ObjectMapper mapper = JsonUtil.mapper();
 
+    private static final int BATCH_SIZE = 50;
+    private static final int LEASE_SECONDS = 300;
+    private static final int MAX_CLAIMS = 10;
+    private static final int RETRY_BACKOFF_SECONDS = 60;
+    private static final int CLOSE_WAIT_SECONDS = 30;
+
+    private record ClaimedEvent(long id, long serviceId, String eventType, String payload,
+                                Timestamp firstFailureAt, int claims, long claimedAt, Set<String> delivered) {}
+
+    private record HistoryRow(String recipient, String subject, String body, boolean sent, String error) {}
+
+    private static final class LeaseLostException extends Exception {
+        LeaseLostException(long eventId) {
+            super("Lease lost for event " + eventId);
+        }
+    }
+
     private final NotificationSender sender;
     private final SystemDefaults systemDefaults;
-    private final TemplateLoader templateLoader = new TemplateLoader();
     private final ScheduledExecutorService executor;
+    private final int capacity;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Long> processed = new ConcurrentLinkedQueue<>();
+    private final String leaseOwner = ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final ExecutorService drainer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-drain");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private volatile boolean backlog;
+    private OutboxListener listener;
+    private volatile boolean closed;
 
     public NotificationProcessorTask(NotificationSender sender, SystemDefaults systemDefaults, int workerThreads) {
         this.sender = sender;
         this.systemDefaults = systemDefaults;
         this.executor = Executors.newScheduledThreadPool(workerThreads);
+        // Claim no more than the workers can start well within one lease
+        this.capacity = Math.max(workerThreads, 1) * 2;
     }
 
     @Override
@@ -53,52 +104,175 @@ public class NotificationProcessorTask implements ScheduledTask {
     }
 
     @Override
-    public void execute() {
-        try (Connection conn = JdbcUtils.getConnection()) {
-            conn.setAutoCommit(false);
+    public Object configFingerprint() {
+        return List.of(intervalSeconds(),
+                systemDefaults.notificationRetryCount(),
+                systemDefaults.uptimeRetryDelay(),
+                systemDefaults.notificationCooldownMinutes());
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (listener != null) listener.close();
+        drainer.shutdown();
+        executor.shutdown();
+        try {
+            // Let running sends finish so their events are completed here, not resent after the lease expires
+            if (!executor.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Notification workers still running after {}s; they complete their events themselves",
+                        CLOSE_WAIT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushProcessed();
+        sender.close();
+    }
+
+    /**
+     * Run execute() soon on the drain thread. Wake-ups that arrive while one is queued collapse into it.
+     */
+    private void wake() {
+        if (!drainQueued.compareAndSet(false, true)) return;
+        try {
+            drainer.execute(() -> {
+                drainQueued.set(false);
+                execute();
+            });
+        } catch (RejectedExecutionException e) {
+            drainQueued.set(false); // closed
+        }
+    }
+
+    @Override
+    public synchronized void execute() {
+        if (closed) return;
+        // Started on the first run rather than in the constructor: reload builds instances it then discards
+        if (listener == null) listener = OutboxListener.start(this::wake);
+
+        flushProcessed();
+
+        int free = Math.min(BATCH_SIZE, capacity - inFlight.get());
+        backlog = free <= 0;
+        if (free <= 0) return;
+
+        List<ClaimedEvent> claimed;
+        try {
+            claimed = claim(free);
+        } catch (Exception e) {
+            logger.error("Database error: {}", e.getMessage(), e);
+            return;
+        }
+        // A full batch means more may be waiting; keep draining as workers free up
+        backlog = claimed.size() == free;
+
+        for (ClaimedEvent event : claimed) {
+            if (event.claims() > MAX_CLAIMS) {
+                fail(event.id(), "Gave up after " + MAX_CLAIMS + " claims");
+                continue;
+            }
+
+            List<Map<String, Object>> payloads;
+            try {
+                payloads = parsePayload(event.payload());
+            } catch (Exception e) {
+                logger.error("Failed processing event {}: {}", event.id(), e.getMessage(), e);
+                fail(event.id(), e.getMessage());
+                continue;
+            }
+
+            inFlight.incrementAndGet();
+            executor.submit(() -> process(event, payloads));
+        }
+    }
 
-            String selectSql = """
-                SELECT event_outbox_id, service_id, event_type, payload, first_failure_at
+    /**
+     * Atomically lease up to limit due events to this node.
+     */
+    private List<ClaimedEvent> claim(int limit) throws SQLException {
+        String sql = """
+            UPDATE event_outbox eo
+            SET status = 'IN_FLIGHT',
+                lease_owner = ?,
+                lease_until = NOW() + make_interval(secs => ?),
+                retries = eo.retries + 1,
+                last_attempt_at = NOW(),
+                updated_at = NOW()
+            WHERE eo.event_outbox_id IN (
+                SELECT event_outbox_id
                 FROM event_outbox
-                WHERE status = 'PENDING'
+                WHERE (status = 'PENDING' AND (lease_until IS NULL OR lease_until <= NOW()))
+                   OR (status = 'IN_FLIGHT' AND lease_until <= NOW())
+                ORDER BY event_outbox_id
+                LIMIT ?
                 FOR UPDATE SKIP LOCKED
-                LIMIT 50
+            )
+            RETURNING eo.event_outbox_id, eo.service_id, eo.event_type, eo.payload, eo.first_failure_at, eo.retries,
+                      eo.delivered
             """;
 
-            try (PreparedStatement ps = conn.prepareStatement(selectSql);
-                 ResultSet rs = ps.executeQuery()) {
-
+        List<ClaimedEvent> claimed = new ArrayList<>();
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, leaseOwner);
+            ps.setInt(2, LEASE_SECONDS);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    long eventId = rs.getLong("event_outbox_id");
-                    long serviceId = rs.getLong("service_id");
-                    String eventType = rs.getString("event_type");
-                    String payloadJson = rs.getString("payload");
-                    Timestamp firstFailureAt = rs.getTimestamp("first_failure_at");
-
-                    try {
-                        List<Map<String, Object>> payloads = parsePayload(payloadJson);
-
-                        for (Map<String, Object> payload : payloads) {
-                            scheduleSendTask(eventId, serviceId, eventType, payload, firstFailureAt,
-                                    systemDefaults.notificationRetryCount(),
-                                    systemDefaults.uptimeRetryDelay(),
-                                    systemDefaults.notificationCooldownMinutes());
-                        }
-
-                    } catch (Exception e) {
-                        logger.error("Failed processing event {}: {}", eventId, e.getMessage(), e);
-                        markFailed(conn, eventId, e.getMessage());
-                    }
+                    Array delivered = rs.getArray("delivered");
+                    claimed.add(new ClaimedEvent(
+                            rs.getLong("event_outbox_id"),
+                            rs.getLong("service_id"),
+                            rs.getString("event_type"),
+                            rs.getString("payload"),
+                            rs.getTimestamp("first_failure_at"),
+                            rs.getInt("retries"),
+                            System.currentTimeMillis(),
+                            delivered == null ? new HashSet<>() : new HashSet<>(List.of((String[]) delivered.getArray()))
+                    ));
                 }
+            }
+        }
+        if (!claimed.isEmpty()) logger.debug("Claimed {} outbox events", claimed.size());
+        return claimed;
+    }
 
-                conn.commit();
-            } catch (Exception e) {
-                conn.rollback();
-                logger.error("Batch failure: {}", e.getMessage(), e);
+    private void process(ClaimedEvent event, List<Map<String, Object>> payloads) {
+        List<HistoryRow> history = new ArrayList<>();
+        try {
+            // SERVICE_DOWN waits out the cooldown before anyone is notified
+            if ("SERVICE_DOWN".equals(event.eventType()) && event.firstFailureAt() != null) {
+                Instant expiry = event.firstFailureAt().toInstant()
+                        .plus(Duration.ofMinutes(systemDefaults.notificationCooldownMinutes()));
+                if (expiry.isAfter(Instant.now())) {
+                    release(event.id(), Duration.between(Instant.now(), expiry).getSeconds() + 1, true, event.delivered());
+                    return;
+                }
             }
 
+            NotificationReferenceData.Snapshot ref = NotificationReferenceData.shared().current();
+            Lease lease = new Lease(event);
+            for (int i = 0; i < payloads.size(); i++) {
+                if (!sendNotifications(event, i, payloads.get(i), ref, lease, history)) {
+                    return; // completed as NO_TEMPLATE_FOUND
+                }
+            }
+            processed.add(event.id());
+            // Past close() nothing else flushes the queue
+            if (closed) flushProcessed();
+        } catch (LeaseLostException e) {
+            logger.warn("{}; another worker owns it now", e.getMessage());
+            // Whoever holds it next still skips what was sent here
+            saveDelivered(event.id(), event.delivered());
         } catch (Exception e) {
-            logger.error("Database error: {}", e.getMessage(), e);
+            logger.error("Error sending notifications for event {}: {}", event.id(), e.getMessage(), e);
+            release(event.id(), RETRY_BACKOFF_SECONDS, false, event.delivered());
+        } finally {
+            // Whatever was actually attempted is recorded, even when the event did not complete
+            writeHistory(event.serviceId(), history);
+            inFlight.decrementAndGet();
+            if (backlog) wake();
         }
     }
 
@@ -117,69 +291,43 @@ public class NotificationProcessorTask implements ScheduledTask {
         return payloads;
     }
 
-    private void scheduleSendTask(long eventId, long serviceId, String eventType, Map<String, Object> payload,
-                                  Timestamp firstFailureAt, int retryCount, int retryDelaySeconds, int cooldownMinutes) {
-
-        Runnable task = () -> {
-            try {
-                sendNotifications(eventId, serviceId, eventType, payload, firstFailureAt,
-                        retryCount, retryDelaySeconds, cooldownMinutes);
-            } catch (Exception e) {
-                logger.error("Error sending notifications for event {}: {}", eventId, e.getMessage(), e);
-            }
-        };
-
-        executor.submit(task);
-    }
-
-
-    private void sendNotifications(long eventId, long serviceId, String eventType, Map<String, Object> payload,
-                                   Timestamp firstFailureAt, int retryCount, int retryDelaySeconds, int cooldownMinutes) throws Exception {
-
-        if ("SERVICE_DOWN".equals(eventType) && firstFailureAt != null) {
-            Instant expiry = firstFailureAt.toInstant().plus(Duration.ofMinutes(cooldownMinutes));
-            if (expiry.isAfter(Instant.now())) return;
-        }
-
-        if ("SERVICE_RECOVERED".equals(eventType) && firstFailureAt != null) {
-            Duration dt = Duration.between(firstFailureAt.toInstant(), Instant.now());
+    /**
+     * Send one payload to every recipient not yet in event.delivered() and collect a history row per
+     * recipient attempted. Returns false when the event has no template (it is then completed as
+     * NO_TEMPLATE_FOUND).
+     * Templates, channels and service contacts come from NotificationReferenceData, so a service event
+     * needs no query here.
+     */
+    private boolean sendNotifications(ClaimedEvent event, int payloadIndex, Map<String, Object> payload,
+                                      NotificationReferenceData.Snapshot ref, Lease lease,
+                                      List<HistoryRow> history) throws Exception {
+
+        String eventType = event.eventType();
+        if ("SERVICE_RECOVERED".equals(eventType) && event.firstFailureAt() != null) {
+            Duration dt = Duration.between(event.firstFailureAt().toInstant(), Instant.now());
             payload.put("downtime_seconds", dt.getSeconds());
         }
 
-        // fetch template from DB
-        String subjectTpl = null;
-        String bodyTpl = null;
-        String bodyTemplateKey = null;
-        String storageMode;
-
-        try (Connection conn = JdbcUtils.getConnection();
-             PreparedStatement ps = conn.prepareStatement("""
-                 SELECT subject_template, body_template, body_template_key, storage_mode
-                 FROM notification_templates
-                 WHERE event_type = ?
-             """)) {
-
-            ps.setString(1, eventType);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    subjectTpl = rs.getString("subject_template");
-                    bodyTpl = rs.getString("body_template");
-                    bodyTemplateKey = rs.getString("body_template_key");
-                    storageMode = rs.getString("storage_mode");
-
-                    // load Email template based on storage mode
-                    bodyTpl = templateLoader.load(storageMode, bodyTpl, bodyTemplateKey, "EMAIL");
-                }
-            }
-        }
-
-        if (subjectTpl == null || bodyTpl == null) {
+        // compiled templates are reused until date_modified changes
+        NotificationReferenceData.Template row = ref.template(eventType);
+        TemplateCache.Compiled templates = row == null ? null : TemplateCache.shared().get(
+                eventType, "EMAIL",
+                row.dateModified(),
+                row.storageMode(),
+                row.subjectTemplate(),
+                row.bodyTemplate(),
+                row.bodyTemplateKey());
+
+        if (templates == null) {
             logger.warn("No template found for event={}, skipping notification", eventType);
-            return;
+            try (Connection conn = JdbcUtils.getConnection()) {
+                markNoTemplate(conn, event.id());
+            }
+            return false;
         }
 
-        String subject = renderTemplate(subjectTpl, bodyTemplateKey, payload);
-        String body = renderTemplate(bodyTpl, bodyTemplateKey, payload);
+        String subject = templates.renderSubject(payload);
+        String body = templates.renderBody(payload);
 
         // Auto attach skypulse logo
         Map<String, String> inlineImages = Map.of(
@@ -190,12 +338,20 @@ public class NotificationProcessorTask implements ScheduledTask {
 
 
         // Load Recipients based on the EVENT_TYPE
-        List<RecipientResolver.Recipient> recipients;
-        try (Connection conn = JdbcUtils.getConnection()) {
-            recipients = RecipientResolver.resolveRecipients(conn, eventType, serviceId, payload.get("userId"));
-        }
+        List<RecipientResolver.Recipient> recipients =
+                RecipientResolver.resolveRecipients(ref, eventType, event.serviceId(), payload.get("userId"));
+
+        int retryCount = systemDefaults.notificationRetryCount();
+        int retryDelaySeconds = systemDefaults.uptimeRetryDelay();
 
         for (RecipientResolver.Recipient r : recipients) {
+            String key = payloadIndex + ":" + r.value();
+            if (event.delivered().contains(key)) {
+                logger.debug("Event {} already delivered to {}, skipping", event.id(), r.value());
+                continue;
+            }
+            lease.keepAlive();
+
             boolean sent = false;
             Exception lastEx = null;
 
@@ -208,89 +364,179 @@ public class NotificationProcessorTask implements ScheduledTask {
                 if (!sent) Thread.sleep(retryDelaySeconds * 1000L);
             }
 
-            // log history
-            try (Connection conn = JdbcUtils.getConnection();
-                 PreparedStatement h = conn.prepareStatement("""
-                     INSERT INTO notification_history (
-                         service_id, contact_group_id, contact_group_member_id,
-                         notification_channel_id, recipient, subject, message,
-                         status, sent_at, error_message,
-                         include_pdf, pdf_template_id, pdf_file_path,
-                         pdf_file_hash, pdf_generated_at
-                     ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), ?, ?, ?, ?, ?, ?)
-                 """)) {
+            if (sent) event.delivered().add(key);
+            history.add(new HistoryRow(r.value(), subject, body, sent,
+                    sent ? null : (lastEx != null ? lastEx.getMessage() : "Retries exhausted")));
+        }
+
+        return true;
+    }
+
+    /** One batched notification_history insert for everything sent for an event. */
+    private void writeHistory(long serviceId, List<HistoryRow> history) {
+        if (history.isEmpty()) return;
 
+        Long channelId;
+        try {
+            channelId = NotificationReferenceData.shared().current().channelId("EMAIL");
+        } catch (SQLException e) {
+            logger.error("Failed fetching EMAIL channel_id: {}", e.getMessage(), e);
+            channelId = null;
+        }
+
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement h = conn.prepareStatement("""
+                 INSERT INTO notification_history (
+                     service_id, contact_group_id, contact_group_member_id,
+                     notification_channel_id, recipient, subject, message,
+                     status, sent_at, error_message,
+                     include_pdf, pdf_template_id, pdf_file_path,
+                     pdf_file_hash, pdf_generated_at
+                 ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), ?, ?, ?, ?, ?, ?)
+             """)) {
+
+            for (HistoryRow row : history) {
                 h.setLong(1, serviceId);
                 h.setNull(2, Types.BIGINT);
                 h.setNull(3, Types.BIGINT);
-
-                Long channelId = getEmailChannelId();
                 if (channelId != null) h.setLong(4, channelId); else h.setNull(4, Types.BIGINT);
 
-                h.setString(5, r.value());
-                h.setString(6, subject);
-                h.setString(7, body);
-                h.setString(8, sent ? "SENT" : "FAILED");
-                h.setString(9, sent ? null : (lastEx != null ? lastEx.getMessage() : "Retries exhausted"));
+                h.setString(5, row.recipient());
+                h.setString(6, row.subject());
+                h.setString(7, row.body());
+                h.setString(8, row.sent() ? "SENT" : "FAILED");
+                h.setString(9, row.error());
 
                 h.setNull(10, Types.BOOLEAN);
                 h.setNull(11, Types.BIGINT);
                 h.setNull(12, Types.VARCHAR);
                 h.setNull(13, Types.VARCHAR);
                 h.setNull(14, Types.TIMESTAMP);
-
-                h.executeUpdate();
+                h.addBatch();
             }
+            h.executeBatch();
+        } catch (SQLException e) {
+            logger.error("Failed writing {} notification_history rows: {}", history.size(), e.getMessage(), e);
         }
+    }
 
-        // Mark event processed after all attempts
-        try (Connection conn = JdbcUtils.getConnection()) {
-            markProcessed(conn, eventId);
-        } catch (Exception e) {
-            logger.error("Failed marking event {} as PROCESSED: {}", eventId, e.getMessage());
+    /** Lease on one claimed event, renewed once a third of it has been used. */
+    private final class Lease {
+        private final ClaimedEvent event;
+        private long renewedAt;
+
+        Lease(ClaimedEvent event) {
+            this.event = event;
+            this.renewedAt = event.claimedAt();
+        }
+
+        void keepAlive() throws SQLException, LeaseLostException {
+            if (System.currentTimeMillis() - renewedAt < LEASE_SECONDS * 1000L / 3) return;
+            if (!renewLease(event.id(), event.delivered())) throw new LeaseLostException(event.id());
+            renewedAt = System.currentTimeMillis();
         }
     }
 
-    private Long getEmailChannelId() {
+    /** Extend our lease and save the recipients delivered so far; false when the row is no longer ours. */
+    private boolean renewLease(long eventId, Set<String> delivered) throws SQLException {
         try (Connection conn = JdbcUtils.getConnection();
              PreparedStatement ps = conn.prepareStatement("""
-                 SELECT notification_channel_id
-                 FROM notification_channels
-                 WHERE notification_channel_code = 'EMAIL' AND is_enabled = TRUE
-                 LIMIT 1
+                 UPDATE event_outbox
+                 SET lease_until = NOW() + make_interval(secs => ?),
+                     delivered = ?
+                 WHERE event_outbox_id = ? AND status = 'IN_FLIGHT' AND lease_owner = ?
              """)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getLong("notification_channel_id");
-            }
+            ps.setInt(1, LEASE_SECONDS);
+            ps.setArray(2, conn.createArrayOf("text", delivered.toArray()));
+            ps.setLong(3, eventId);
+            ps.setString(4, leaseOwner);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Merge delivered into the row whoever holds it, so a worker that lost its lease still stops the
+     * next one resending.
+     */
+    private void saveDelivered(long eventId, Set<String> delivered) {
+        if (delivered.isEmpty()) return;
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement("""
+                 UPDATE event_outbox
+                 SET delivered = ARRAY(SELECT DISTINCT unnest(delivered || ?::text[]))
+                 WHERE event_outbox_id = ?
+             """)) {
+            ps.setArray(1, conn.createArrayOf("text", delivered.toArray()));
+            ps.setLong(2, eventId);
+            ps.executeUpdate();
         } catch (SQLException e) {
-            logger.error("Failed fetching EMAIL channel_id: {}", e.getMessage(), e);
+            logger.error("Failed saving delivered recipients for event {}: {}", eventId, e.getMessage());
         }
-        return null;
     }
 
-    private String renderTemplate(String tpl, String templateKey, Map<String, Object> payload) throws Exception {
-        if (tpl == null || tpl.isBlank()) {
-            tpl = templateLoader.load("hybrid", null, templateKey, "EMAIL");
-            if (tpl == null) throw new Exception("No template found for key=" + templateKey);
+    /**
+     * Hand a claimed event back as PENDING, not claimable for delaySeconds, with the recipients
+     * already delivered to. A deferral does not count as a claim.
+     */
+    private void release(long eventId, long delaySeconds, boolean deferral, Set<String> delivered) {
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement("""
+                 UPDATE event_outbox
+                 SET status = 'PENDING', lease_owner = NULL,
+                     lease_until = NOW() + make_interval(secs => ?),
+                     retries = retries - ?,
+                     delivered = ?,
+                     updated_at = NOW()
+                 WHERE event_outbox_id = ? AND status = 'IN_FLIGHT' AND lease_owner = ?
+             """)) {
+            ps.setLong(1, delaySeconds);
+            ps.setInt(2, deferral ? 1 : 0);
+            ps.setArray(3, conn.createArrayOf("text", delivered.toArray()));
+            ps.setLong(4, eventId);
+            ps.setString(5, leaseOwner);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Failed releasing event {}: {}", eventId, e.getMessage());
         }
-        Mustache m = new DefaultMustacheFactory().compile(new StringReader(tpl), "tpl");
-        StringWriter w = new StringWriter();
-        m.execute(w, payload).flush();
-        return w.toString();
     }
 
-    private void markProcessed(Connection conn, long eventId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE event_outbox SET status='PROCESSED', updated_at=NOW() WHERE event_outbox_id=?"
-        )) {
-            ps.setLong(1, eventId);
+    private void fail(long eventId, String reason) {
+        try (Connection conn = JdbcUtils.getConnection()) {
+            markFailed(conn, eventId, reason);
+        } catch (Exception e) {
+            logger.error("Failed marking event {} as FAILED: {}", eventId, e.getMessage());
+        }
+    }
+
+    /** Mark everything completed since the last tick as PROCESSED in one statement. */
+    private void flushProcessed() {
+        List<Long> ids = new ArrayList<>();
+        for (Long id; (id = processed.poll()) != null; ) ids.add(id);
+        if (ids.isEmpty()) return;
+
+        try (Connection conn = JdbcUtils.getConnection()) {
+            markProcessed(conn, ids);
+        } catch (SQLException e) {
+            // Leases are still held; put them back for the next tick
+            processed.addAll(ids);
+            logger.error("Failed marking {} events as PROCESSED: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void markProcessed(Connection conn, List<Long> eventIds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                UPDATE event_outbox SET status='PROCESSED', lease_owner=NULL, lease_until=NULL, updated_at=NOW()
+                WHERE event_outbox_id = ANY(?) AND status='IN_FLIGHT' AND lease_owner=?
+                """)) {
+            ps.setArray(1, conn.createArrayOf("bigint", eventIds.toArray()));
+            ps.setString(2, leaseOwner);
             ps.executeUpdate();
         }
     }
 
     private void markNoTemplate(Connection conn, long eventId) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE event_outbox SET status='NO_TEMPLATE_FOUND', updated_at=NOW() WHERE event_outbox_id=?"
+                "UPDATE event_outbox SET status='NO_TEMPLATE_FOUND', lease_owner=NULL, lease_until=NULL, updated_at=NOW() WHERE event_outbox_id=?"
         )) {
             ps.setLong(1, eventId);
             ps.executeUpdate();
@@ -299,7 +545,7 @@ public class NotificationProcessorTask implements ScheduledTask {
 
     private void markFailed(Connection conn, long eventId, String reason) throws SQLException, JsonProcessingException {
         try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE event_outbox SET status='FAILED', updated_at=NOW(), payload = payload || ?::jsonb WHERE event_outbox_id=?"
+                "UPDATE event_outbox SET status='FAILED', lease_owner=NULL, lease_until=NULL, updated_at=NOW(), payload = payload || ?::jsonb WHERE event_outbox_id=?"
         )) {
             ps.setString(1, mapper.writeValueAsString(Map.of("error", reason)));
             ps.setLong(2, eventId);
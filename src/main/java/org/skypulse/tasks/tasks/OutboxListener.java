@@ -0,0 +1,92 @@
+package org.skypulse.tasks.tasks;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.skypulse.config.database.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * LISTENs on the event_outbox channel and runs onNotify when events are inserted.
+ * - The trigger in SkyPulse_DDL.sql notifies once per inserting statement
+ * - Holds one dedicated connection outside the Hikari pool on a daemon thread
+ * - After a (re)connect onNotify runs once, since inserts in between were not heard
+ */
+final class OutboxListener implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxListener.class);
+
+    static final String CHANNEL = "event_outbox";
+
+    private static final int POLL_TIMEOUT_MILLIS = 10_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final Runnable onNotify;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Connection connection;
+
+    private OutboxListener(Runnable onNotify) {
+        this.onNotify = onNotify;
+        this.thread = new Thread(this::run, "outbox-listener");
+        this.thread.setDaemon(true);
+    }
+
+    static OutboxListener start(Runnable onNotify) {
+        OutboxListener listener = new OutboxListener(onNotify);
+        listener.thread.start();
+        return listener;
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection conn = DatabaseManager.openDedicatedConnection()) {
+                connection = conn;
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for outbox events on channel '{}'", CHANNEL);
+                onNotify.run();
+
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        onNotify.run();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) break;
+                logger.warn("Outbox listener lost its connection, retrying in {} ms: {}",
+                        RECONNECT_DELAY_MILLIS, e.getMessage());
+            } finally {
+                connection = null;
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Connection conn = connection;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing outbox listener connection: {}", e.getMessage());
+            }
+        }
+        thread.interrupt();
+    }
+}
@@ -2,6 +2,7 @@ package org.skypulse.tasks.tasks;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.skypulse.tasks.ScheduledTask;
+import org.skypulse.tasks.sse.ServiceStatusBus;
 import org.skypulse.config.database.dtos.SystemSettings;
 import org.skypulse.config.database.JdbcUtils;
 import org.skypulse.utils.JsonUtil;
@@ -63,6 +64,11 @@ public class SslExpiryMonitorTask implements ScheduledTask {
         return sslCheckIntervalSeconds;
     }
 
+    @Override
+    public Object configFingerprint() {
+        return List.of(sslCheckIntervalSeconds, alertThresholds, sslRetryCount, sslRetryDelaySeconds);
+    }
+
     @Override
     public void execute() {
         logger.info("Starting SslExpiryMonitorTask");
@@ -163,6 +169,7 @@ public class SslExpiryMonitorTask implements ScheduledTask {
                 logger.warn("No certificate found for host {}", host);
                 upsertSslLogFailure(c, serviceId, host);
                 c.commit();
+                ServiceStatusBus.shared().sslChanged(serviceId, -1);
                 return;
             }
 
@@ -175,6 +182,7 @@ public class SslExpiryMonitorTask implements ScheduledTask {
             checkAndCreateAlerts(c, serviceId, serviceName, host, certInfo, daysLeft);
 
             c.commit();
+            ServiceStatusBus.shared().sslChanged(serviceId, daysLeft);
 
         } catch (Exception e) {
             logger.error("SSL check failed for service ({}) {} [{}] : {}", serviceId, serviceName, url, e.getMessage(), e);
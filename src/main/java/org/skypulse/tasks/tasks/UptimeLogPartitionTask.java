@@ -0,0 +1,213 @@
+package org.skypulse.tasks.tasks;
+
+import org.skypulse.config.database.JdbcUtils;
+import org.skypulse.config.database.dtos.SystemSettings;
+import org.skypulse.tasks.ScheduledTask;
+import org.skypulse.tasks.rollup.UptimeRollups;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * UptimeLogPartitionTask maintains the daily range partitions of uptime_logs.
+ * - Pre-creates partitions for today and the next PRECREATE_DAYS days so inserts never land in the default partition
+ * - Rows that did land in the default partition are moved into a partition for their day
+ * - Drops partitions that ended before the retention window (system_settings.uptime_log_retention_days),
+ *   and deletes rows past it from the default partition, which is never dropped
+ * - Prunes fine-grained uptime_rollups buckets past their own retention
+ * - Dates come from the JVM clock and zone, like checked_at (written by UptimeResultWriter from the probe's
+ *   OffsetDateTime) and the rollup buckets, so a JVM/database time zone difference cannot misroute rows
+ */
+public class UptimeLogPartitionTask implements ScheduledTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(UptimeLogPartitionTask.class);
+
+    private static final String PARENT = "uptime_logs";
+    private static final String PREFIX = "uptime_logs_p";
+    private static final String DEFAULT_PARTITION = "uptime_logs_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int PRECREATE_DAYS = 7;
+    private static final long INTERVAL_SECONDS = 60 * 60;
+
+    private final int retentionDays;
+
+    public UptimeLogPartitionTask(SystemSettings.SystemDefaults defaults) {
+        this.retentionDays = Math.max(defaults.uptimeLogRetentionDays(), 0);
+    }
+
+    @Override
+    public String name() {
+        return "[ UptimeLogPartitionTask ]";
+    }
+
+    @Override
+    public long intervalSeconds() {
+        return INTERVAL_SECONDS;
+    }
+
+    @Override
+    public Object configFingerprint() {
+        return retentionDays;
+    }
+
+    @Override
+    public void execute() {
+        try (Connection conn = JdbcUtils.getConnection()) {
+            LocalDate today = LocalDate.now();
+            LocalDate cutoff = retentionDays > 0 ? today.minusDays(retentionDays) : null;
+
+            int pruned = cutoff != null ? pruneDefault(conn, cutoff) : 0;
+
+            // Days with rows stranded in the default partition get a partition of their own as well
+            SortedSet<LocalDate> days = new TreeSet<>(defaultPartitionDays(conn));
+            for (int i = 0; i <= PRECREATE_DAYS; i++) {
+                days.add(today.plusDays(i));
+            }
+
+            int created = 0;
+            for (LocalDate day : days) {
+                if (createPartition(conn, day)) created++;
+            }
+
+            int dropped = 0;
+            if (cutoff != null) {
+                for (String partition : dailyPartitions(conn)) {
+                    LocalDate day = partitionDay(partition);
+                    // Partition covers [day, day + 1); drop once all of it is older than the cutoff
+                    if (day != null && !day.plusDays(1).isAfter(cutoff)) {
+                        dropPartition(conn, partition);
+                        dropped++;
+                    }
+                }
+            }
+
+            UptimeRollups.prune(conn);
+
+            if (created > 0 || dropped > 0 || pruned > 0) {
+                logger.info("uptime_logs partitions maintained: created={} dropped={} prunedDefaultRows={} retentionDays={}",
+                        created, dropped, pruned, retentionDays);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to maintain uptime_logs partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create the partition for day unless it exists. CREATE ... PARTITION OF fails while the default partition
+     * holds rows for that day, so the table is created standalone, those rows are moved into it and it is
+     * attached, all in one transaction.
+     */
+    private static boolean createPartition(Connection conn, LocalDate day) {
+        String name = PREFIX + day.format(SUFFIX);
+        // Identifiers and bounds are built from LocalDate only, never from input
+        String from = "'" + day + "'";
+        String to = "'" + day.plusDays(1) + "'";
+
+        try {
+            if (partitionExists(conn, name)) return false;
+
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                // ATTACH needs this lock to validate the default partition anyway; taken first so no row for the day slips in
+                st.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE");
+                st.execute("CREATE TABLE " + name + " (LIKE " + PARENT + " INCLUDING DEFAULTS)");
+                int moved = st.executeUpdate("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE checked_at >= " + from + " AND checked_at < " + to + " RETURNING *)"
+                        + " INSERT INTO " + name + " SELECT * FROM moved");
+                st.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + name
+                        + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+                conn.commit();
+
+                if (moved > 0) {
+                    logger.info("Moved {} uptime_logs rows from {} into new partition {}", moved, DEFAULT_PARTITION, name);
+                }
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not create partition {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<LocalDate> defaultPartitionDays(Connection conn) throws Exception {
+        List<LocalDate> days = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT DISTINCT checked_at::date FROM " + DEFAULT_PARTITION)) {
+            while (rs.next()) days.add(rs.getObject(1, LocalDate.class));
+        }
+        return days;
+    }
+
+    /**
+     * The default partition is never dropped, so rows in it that are past the retention window are deleted.
+     */
+    private static int pruneDefault(Connection conn, LocalDate cutoff) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + DEFAULT_PARTITION + " WHERE checked_at < ?")) {
+            ps.setObject(1, cutoff.atStartOfDay());
+            return ps.executeUpdate();
+        }
+    }
+
+    private static boolean partitionExists(Connection conn, String name) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static List<String> dailyPartitions(Connection conn) throws Exception {
+        String sql = """
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = ?::regclass
+          AND c.relname LIKE 'uptime\\_logs\\_p%'
+        ORDER BY c.relname
+        """;
+
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, PARENT);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        try {
+            return LocalDate.parse(partition.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static void dropPartition(Connection conn, String partition) {
+        try (Statement st = conn.createStatement()) {
+            st.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition);
+            st.execute("DROP TABLE " + partition);
+            logger.info("Dropped expired uptime_logs partition {}", partition);
+        } catch (Exception e) {
+            logger.error("Failed to drop partition {}: {}", partition, e.getMessage());
+        }
+    }
+}
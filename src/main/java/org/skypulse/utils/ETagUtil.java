@@ -0,0 +1,85 @@
+package org.skypulse.utils;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.skypulse.config.database.JdbcUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Conditional GET for read-heavy endpoints.
+ * - The ETag is a hash of the request URL and a cheap "version" query (row counts, MAX(date_modified), ...)
+ * - If-None-Match hits answer 304 before the real query runs or anything is serialized
+ * - ETags are weak: they track the data, not the exact bytes (compression, key order)
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {}
+
+    /**
+     * Weak ETag for this request, or null when the version query returns no row (let the handler answer 404).
+     */
+    public static String weak(HttpServerExchange exchange, String versionSql, List<Object> params) throws SQLException {
+        StringBuilder version = new StringBuilder(exchange.getRequestPath())
+                .append('?').append(exchange.getQueryString());
+
+        try (Connection conn = JdbcUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement(versionSql)) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                int columns = rs.getMetaData().getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    version.append('|').append(rs.getObject(i));
+                }
+            }
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(version.toString().getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Set the ETag and answer 304 when If-None-Match matches it. Returns true when the exchange is finished.
+     */
+    public static boolean notModified(HttpServerExchange exchange, String etag) {
+        if (etag == null) return false;
+
+        exchange.getResponseHeaders().put(Headers.ETAG, etag);
+        exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "private, no-cache");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst(Headers.IF_NONE_MATCH);
+        if (ifNoneMatch == null) return false;
+
+        String opaque = strip(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || strip(tag).equals(opaque)) {
+                exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+                exchange.endExchange();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match uses weak comparison: W/"x" matches "x"
+    private static String strip(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,144 @@
+package org.skypulse.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.postgresql.util.PGobject;
+import org.skypulse.config.database.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streams query results as JSON without building rows in memory.
+ * - Rows go from a fetch-size cursor straight to a JsonGenerator on the response stream
+ * - Column names are turned into SerializedStrings once per query
+ * - json/jsonb columns are written raw; other values go through JsonUtil.mapper() as before
+ * - The status line is sent with the first bytes, so a failure mid-stream aborts the connection
+ *   instead of turning into an error response
+ */
+public final class JsonStreamUtil {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonStreamUtil.class);
+
+    public static final int FETCH_SIZE = 500;
+
+    private static final ObjectMapper mapper = JsonUtil.mapper();
+
+    /** Called for each written row before it is closed; may add fields or read key columns. */
+    @FunctionalInterface
+    public interface RowHook {
+        void accept(ResultSet rs, JsonGenerator gen) throws SQLException, IOException;
+    }
+
+    /** rows written, and whether the result had more than the limit. */
+    public record Result(long rows, boolean more) {}
+
+    private JsonStreamUtil() {}
+
+    /**
+     * Writes {head..., "data": [rows], tail...} with status 200.
+     * limit caps the rows written (negative for no cap); select one extra row to learn whether more exist.
+     */
+    public static Result sendRows(HttpServerExchange exchange, Map<String, Object> head, String sql, List<Object> params,
+                                  long limit, RowHook hook, Function<Result, Map<String, Object>> tail)
+            throws SQLException, IOException {
+
+        try (Connection conn = JdbcUtils.getConnection()) {
+            // pgjdbc only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData md = rs.getMetaData();
+                    SerializedString[] names = new SerializedString[md.getColumnCount()];
+                    for (int i = 0; i < names.length; i++) {
+                        names[i] = new SerializedString(md.getColumnLabel(i + 1));
+                    }
+
+                    exchange.setStatusCode(StatusCodes.OK);
+                    exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
+                    if (!exchange.isBlocking()) exchange.startBlocking();
+
+                    try (JsonGenerator gen = mapper.getFactory().createGenerator(exchange.getOutputStream(), JsonEncoding.UTF8)) {
+                        gen.writeStartObject();
+                        writeFields(gen, head);
+                        gen.writeArrayFieldStart("data");
+
+                        long rows = 0;
+                        boolean more = false;
+                        while (rs.next()) {
+                            if (limit >= 0 && rows == limit) {
+                                more = true;
+                                break;
+                            }
+                            gen.writeStartObject();
+                            for (int i = 0; i < names.length; i++) {
+                                gen.writeFieldName(names[i]);
+                                writeValue(gen, rs.getObject(i + 1));
+                            }
+                            if (hook != null) hook.accept(rs, gen);
+                            gen.writeEndObject();
+                            rows++;
+                        }
+                        gen.writeEndArray();
+
+                        Result result = new Result(rows, more);
+                        if (tail != null) writeFields(gen, tail.apply(result));
+                        gen.writeEndObject();
+
+                        logger.debug("Streamed {} rows", rows);
+                        return result;
+                    }
+                }
+            } finally {
+                try {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.debug("Could not reset streaming connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void writeFields(JsonGenerator gen, Map<String, Object> fields) throws IOException {
+        if (fields == null) return;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            gen.writeFieldName(field.getKey());
+            gen.writeObject(field.getValue());
+        }
+    }
+
+    private static void writeValue(JsonGenerator gen, Object value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof String s) {
+            gen.writeString(s);
+        } else if (value instanceof Integer i) {
+            gen.writeNumber(i);
+        } else if (value instanceof Long l) {
+            gen.writeNumber(l);
+        } else if (value instanceof Boolean b) {
+            gen.writeBoolean(b);
+        } else if (value instanceof PGobject pg && ("jsonb".equalsIgnoreCase(pg.getType()) || "json".equalsIgnoreCase(pg.getType()))) {
+            if (pg.getValue() == null) gen.writeNull();
+            else gen.writeRawValue(pg.getValue());
+        } else {
+            gen.writeObject(value);
+        }
+    }
+}
@@ -21,7 +21,6 @@ public class ResponseUtil {
             exchange.setStatusCode(status);
 
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json; charset=utf-8");
-            exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, "utf-8");
 
             String json = mapper.writeValueAsString(body);
 
@@ -1,6 +1,7 @@
 package org.skypulse.utils.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -21,8 +22,43 @@ public final class JwtUtil {
     private static final String CLAIM_EMAIL = "email";
     private static final String CLAIM_ROLE = "role";
 
+    // Key and parser are immutable and thread-safe; built once on first use
+    private static volatile SecretKey signingKey;
+    private static volatile JwtParser parser;
+
     private JwtUtil() {}
 
+    private static SecretKey signingKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            synchronized (JwtUtil.class) {
+                key = signingKey;
+                if (key == null) {
+                    String jwtKey = KeyProvider.get("JWT_SIGNING_KEY");
+                    key = Keys.hmacShaKeyFor(jwtKey.getBytes(StandardCharsets.UTF_8));
+                    signingKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private static JwtParser parser() {
+        JwtParser p = parser;
+        if (p == null) {
+            synchronized (JwtUtil.class) {
+                p = parser;
+                if (p == null) {
+                    p = Jwts.parserBuilder()
+                            .setSigningKey(signingKey())
+                            .build();
+                    parser = p;
+                }
+            }
+        }
+        return p;
+    }
+
     /**
      *  Access token generated using the user's UUID as subject and a provided jti (UUID).
      *  userUuid user UUID (as string)
@@ -31,8 +67,6 @@ public final class JwtUtil {
      *  compact JWT string
      */
     public static String generateAccessTokenWithJti(String userUuid, String email, String roleName, long ttlSeconds, UUID jti) {
-        String jwtKey = KeyProvider.get("JWT_SIGNING_KEY");
-        SecretKey key = Keys.hmacShaKeyFor(jwtKey.getBytes(StandardCharsets.UTF_8));
         Instant now = Instant.now();
 
         return Jwts.builder()
@@ -44,55 +78,56 @@ public final class JwtUtil {
                         CLAIM_EMAIL, email,
                         CLAIM_ROLE, roleName
                 ))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(signingKey(), SignatureAlgorithm.HS256)
                 .setIssuer("SkyPulse-Monitoring-System")
                 .compact();
     }
 
     private static Claims parseToken(String token) {
-        String jwtKey = KeyProvider.get("JWT_SIGNING_KEY");
-        SecretKey key = Keys.hmacShaKeyFor(jwtKey.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser().parseClaimsJws(token).getBody();
     }
 
-    public static String getUserUUId(String token) {
+    /**
+     * Verify signature and expiry once. Returns null for a missing, invalid or expired token.
+     */
+    public static VerifiedClaims verify(String token) {
+        if (token == null || token.isBlank()) return null;
         try {
             Claims c = parseToken(token);
-            return c.getSubject();
+            Date exp = c.getExpiration();
+            if (exp == null || exp.toInstant().isBefore(Instant.now())) return null;
+            Date iat = c.getIssuedAt();
+            return new VerifiedClaims(
+                    c.getSubject(),
+                    c.getId(),
+                    c.get(CLAIM_EMAIL, String.class),
+                    c.get(CLAIM_ROLE, String.class),
+                    iat != null ? iat.toInstant() : null,
+                    exp.toInstant()
+            );
         } catch (Exception e) {
             return null;
         }
     }
 
+    public static String getUserUUId(String token) {
+        VerifiedClaims c = verify(token);
+        return c != null ? c.subject() : null;
+    }
+
     public static String getEmail(String token) {
-        try {
-            Claims c = parseToken(token);
-            return c.get(CLAIM_EMAIL, String.class);
-        } catch (Exception e) {
-            return null;
-        }
+        VerifiedClaims c = verify(token);
+        return c != null ? c.email() : null;
     }
 
     public static String getRole(String token) {
-        try {
-            Claims c = parseToken(token);
-            return c.get(CLAIM_ROLE, String.class);
-        } catch (Exception e) {
-            return null;
-        }
+        VerifiedClaims c = verify(token);
+        return c != null ? c.role() : null;
     }
 
     public static String getJwtId(String token) {
-        try {
-            Claims c = parseToken(token);
-            return c.getId();
-        } catch (Exception e) {
-            return null;
-        }
+        VerifiedClaims c = verify(token);
+        return c != null ? c.jwtId() : null;
     }
 
 
@@ -115,13 +150,7 @@ public final class JwtUtil {
         }
 
     public static boolean isExpired(String token) {
-        try {
-            Claims claims = parseToken(token);
-            Date exp = claims.getExpiration();
-            return exp == null || exp.toInstant().isBefore(Instant.now());
-        } catch (Exception e) {
-            return true;
-        }
+        return verify(token) == null;
     }
 
 }
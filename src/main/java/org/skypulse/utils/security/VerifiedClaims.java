@@ -0,0 +1,10 @@
+package org.skypulse.utils.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of an access token whose signature and expiry were checked once for the current request.
+ */
+public record VerifiedClaims(String subject, String jwtId, String email, String role, Instant issuedAt,
+                             Instant expiresAt) {
+}
@@ -0,0 +1,254 @@
+package org.skypulse.notifications.email;
+
+import jakarta.mail.Message;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpTransportPoolTest {
+
+    private SmtpStub server;
+    private SmtpTransportPool pool;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) pool.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void reusesOneConnectionForConsecutiveSends() throws Exception {
+        start(true, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            pool.send(message("to" + i + "@example.com"));
+        }
+
+        assertEquals(5, server.delivered.get());
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    void reconnectsAfterTheServerDropsTheConnection() throws Exception {
+        start(true, 60_000);
+        pool.send(message("first@example.com"));
+
+        server.dropConnections();
+        pool.send(message("second@example.com"));
+
+        assertEquals(2, server.delivered.get());
+        assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    void evictsIdleConnections() throws Exception {
+        start(true, 200);
+        pool.send(message("first@example.com"));
+        assertEquals(1, server.open.get());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (server.open.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, server.open.get());
+
+        pool.send(message("second@example.com"));
+        assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    void pipelinesTheEnvelopeWhenAdvertised() throws Exception {
+        start(true, 60_000);
+
+        pool.send(message("a@example.com, b@example.com, c@example.com"));
+
+        assertEquals(1, server.pipelinedEnvelopes.get());
+        assertEquals(List.of("<a@example.com>", "<b@example.com>", "<c@example.com>"), server.recipients);
+    }
+
+    @Test
+    void sendsTheEnvelopeStepByStepWithoutPipelining() throws Exception {
+        start(false, 60_000);
+
+        pool.send(message("a@example.com, b@example.com"));
+
+        assertEquals(0, server.pipelinedEnvelopes.get());
+        assertEquals(1, server.delivered.get());
+    }
+
+    @Test
+    void keepsAPipelinedConnectionUsableAfterARejectedRecipient() throws Exception {
+        start(true, 60_000);
+
+        assertThrows(SendFailedException.class, () -> pool.send(message("a@example.com, reject@example.com")));
+        pool.send(message("b@example.com"));
+
+        assertEquals(1, server.delivered.get());
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    void keepsAPipelinedConnectionUsableAfterARejectedSender() throws Exception {
+        start(true, 60_000);
+
+        MimeMessage blocked = message("a@example.com, b@example.com");
+        blocked.setFrom(new InternetAddress("reject@example.com"));
+        assertThrows(SendFailedException.class, () -> pool.send(blocked));
+        pool.send(message("c@example.com"));
+
+        assertEquals(1, server.delivered.get());
+        assertEquals(1, server.connections.get());
+    }
+
+    private void start(boolean pipelining, long idleTimeoutMillis) throws IOException {
+        server = new SmtpStub(pipelining);
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "127.0.0.1");
+        props.put("mail.smtp.port", String.valueOf(server.port()));
+        props.put("mail.smtp.timeout", "5000");
+        pool = new SmtpTransportPool(Session.getInstance(props), "127.0.0.1", server.port(), null, null,
+                2, idleTimeoutMillis, 5_000);
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage msg = new MimeMessage(Session.getInstance(new Properties()));
+        msg.setFrom(new InternetAddress("alerts@example.com"));
+        msg.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+        msg.setSubject("test");
+        msg.setText("body");
+        return msg;
+    }
+
+    /**
+     * Minimal in-process SMTP server.
+     * - Counts accepted, open and dropped connections and delivered messages
+     * - Rejects any sender or recipient starting with "reject"
+     * - Before answering MAIL FROM it waits briefly; a RCPT TO already waiting means the client pipelined
+     */
+    private static final class SmtpStub implements Closeable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger delivered = new AtomicInteger();
+        final AtomicInteger pipelinedEnvelopes = new AtomicInteger();
+        final List<String> recipients = new CopyOnWriteArrayList<>();
+
+        private final boolean pipelining;
+        private final ServerSocket listener = new ServerSocket(0);
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+        SmtpStub(boolean pipelining) throws IOException {
+            this.pipelining = pipelining;
+            Thread acceptor = new Thread(this::accept, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return listener.getLocalPort();
+        }
+
+        void dropConnections() throws IOException {
+            for (Socket socket : sockets) socket.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            listener.close();
+            dropConnections();
+        }
+
+        private void accept() {
+            while (!listener.isClosed()) {
+                try {
+                    Socket socket = listener.accept();
+                    connections.incrementAndGet();
+                    open.incrementAndGet();
+                    sockets.add(socket);
+                    Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 stub ESMTP");
+                boolean senderRejected = false;
+                List<String> envelope = new CopyOnWriteArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.toUpperCase();
+                    if (cmd.startsWith("EHLO")) {
+                        reply(out, pipelining ? "250-stub\r\n250-PIPELINING\r\n250 8BITMIME" : "250-stub\r\n250 8BITMIME");
+                    } else if (cmd.startsWith("HELO") || cmd.startsWith("NOOP")) {
+                        reply(out, "250 OK");
+                    } else if (cmd.startsWith("MAIL FROM:")) {
+                        Thread.sleep(100);
+                        if (in.ready()) pipelinedEnvelopes.incrementAndGet();
+                        senderRejected = line.substring(10).startsWith("<reject");
+                        envelope.clear();
+                        reply(out, senderRejected ? "550 sender rejected" : "250 OK");
+                    } else if (cmd.startsWith("RCPT TO:")) {
+                        String rcpt = line.substring(8);
+                        if (senderRejected) {
+                            reply(out, "503 need MAIL first");
+                        } else if (rcpt.startsWith("<reject")) {
+                            reply(out, "550 no such user");
+                        } else {
+                            envelope.add(rcpt);
+                            reply(out, "250 OK");
+                        }
+                    } else if (cmd.equals("DATA")) {
+                        reply(out, "354 go ahead");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // discard the message body
+                        }
+                        recipients.addAll(envelope);
+                        delivered.incrementAndGet();
+                        reply(out, "250 queued");
+                    } else if (cmd.equals("RSET")) {
+                        senderRejected = false;
+                        envelope.clear();
+                        reply(out, "250 OK");
+                    } else if (cmd.equals("QUIT")) {
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        reply(out, "502 not implemented");
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Dropped by the test or by the client
+            } finally {
+                sockets.remove(socket);
+                open.decrementAndGet();
+            }
+        }
+
+        private static void reply(Writer out, String response) throws IOException {
+            out.write(response);
+            out.write("\r\n");
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.skypulse.utils.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of verifying an access token in AuthMiddleware.
+ * - before: getJwtId() then isExpired(), each reading JWT_SIGNING_KEY, building the HMAC key and a
+ *   new JwtParser, and checking the signature again
+ * - after: a single JwtUtil.verify() on the cached key and parser
+ * Needs JWT_SIGNING_KEY (at least 32 bytes) in the environment.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerifyBenchmark {
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = JwtUtil.generateAccessTokenWithJti(UUID.randomUUID().toString(), "bench@skypulse.local",
+                "ADMIN", 3600, UUID.randomUUID());
+    }
+
+    @Benchmark
+    public void before(Blackhole bh) {
+        bh.consume(parseUncached(token).getId());
+        Date exp = parseUncached(token).getExpiration();
+        bh.consume(exp == null || exp.toInstant().isBefore(Instant.now()));
+    }
+
+    @Benchmark
+    public VerifiedClaims after() {
+        return JwtUtil.verify(token);
+    }
+
+    // JwtUtil.parseToken as it was before the key and parser were cached
+    private static Claims parseUncached(String token) {
+        String jwtKey = KeyProvider.get("JWT_SIGNING_KEY");
+        SecretKey key = Keys.hmacShaKeyFor(jwtKey.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}